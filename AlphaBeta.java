@@ -1,5 +1,3 @@
-import java.util.LinkedList;
-
 /**
  * This is where you implement the alpha-beta algorithm.
  * See <code>OthelloAlgorithm</code> for details.
@@ -14,13 +12,63 @@ import java.util.LinkedList;
  */
 public class AlphaBeta implements OthelloAlgorithm {
 
-	private static final int NEG_INFINITY = Integer.MIN_VALUE;
-	private static final int POS_INFINITY = Integer.MAX_VALUE;
+	protected static final int NEG_INFINITY = -Integer.MAX_VALUE;
+	protected static final int POS_INFINITY = Integer.MAX_VALUE;
 
 	protected int searchDepth;
 	protected static final int DefaultDepth = 7;
+
+	/**
+	 * Positions with at most this many discs share their transposition table
+	 * entry with their symmetric forms. Later in the game symmetric forms of
+	 * a position are rarely both reached and the canonical form is not worth
+	 * finding.
+	 */
+	protected static final int CANONICAL_MAX_DISCS = 8;
+
 	protected OthelloEvaluator evaluator;
-	private long stop = Long.MAX_VALUE;
+	/**
+	 * Deadline of the search, checked once per node.
+	 */
+	protected final Deadline deadline = new Deadline();
+
+	/**
+	 * One reusable move buffer per ply, indexed by the distance from the root.
+	 */
+	protected int[][] moveLists = new int[0][];
+
+	/**
+	 * Results of earlier searches, kept between the iterations of iterative deepening.
+	 */
+	protected TranspositionTable table;
+
+	/**
+	 * Hash move, killer moves and history table used to order the children of a node.
+	 */
+	protected MoveOrdering ordering = new MoveOrdering();
+
+	/**
+	 * Number of nodes visited since the search was created.
+	 */
+	protected long nodes;
+
+	/**
+	 * Window the root is searched with, seen from white.
+	 */
+	protected int windowAlpha = NEG_INFINITY;
+	protected int windowBeta = POS_INFINITY;
+
+	/**
+	 * Score of the move returned by the latest completed search, seen from white.
+	 */
+	protected int score;
+
+	/**
+	 * First root move and best root move proven so far by the latest search,
+	 * PASS if no root move has been searched completely.
+	 */
+	protected int partialFirstMove = OthelloPosition.PASS;
+	protected int partialMove = OthelloPosition.PASS;
 
 	/**
 	 * Sets a stop time for search.
@@ -31,7 +79,7 @@ public class AlphaBeta implements OthelloAlgorithm {
 	 * @param stop, absolute deadline.
 	 */
 	public void setStopTime (long stop) {
-		this.stop = stop;
+		deadline.setStopTime(stop);
 	}
 
 	/**
@@ -39,13 +87,12 @@ public class AlphaBeta implements OthelloAlgorithm {
 	 *
 	 * If the current time has passed the stop time,
 	 * it throws TimeIsUpExeption and the seach will end.
+	 * The clock is only read every few nodes, see <code>Deadline</code>.
 	 *
 	 * @throws TimeIsUpExeption, if stop time is reached.
 	 */
-	private void stopTimeOrNot() {
-		if (System.nanoTime() >= stop) {
-			throw new TimeIsUpExeption();
-		}
+	protected void stopTimeOrNot() {
+		deadline.check();
 	}
 
 	/**
@@ -98,6 +145,88 @@ public class AlphaBeta implements OthelloAlgorithm {
 		searchDepth = depth;
 	}
 
+	/**
+	 * Sets the transposition table used by the search.
+	 *
+	 * @param table, table to probe and store results in.
+	 */
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Returns the transposition table used by the search.
+	 *
+	 * @return the table, with its hit/miss/collision counters.
+	 */
+	public TranspositionTable getTranspositionTable() {
+		ensureTable();
+		return table;
+	}
+
+	/**
+	 * Creates the default table if none has been set. It is made on first use
+	 * and not in the constructor, so a search that is given a shared table
+	 * never allocates one of its own.
+	 */
+	protected void ensureTable() {
+		if (table == null) {
+			table = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
+		}
+	}
+
+	/**
+	 * Sets the window the root is searched with.
+	 *
+	 * @param alpha, lower bound seen from white.
+	 * @param beta, upper bound seen from white.
+	 */
+	public void setWindow(int alpha, int beta) {
+		windowAlpha = alpha;
+		windowBeta = beta;
+	}
+
+	/**
+	 * Returns the score of the latest completed search, seen from white.
+	 *
+	 * @return score of the best move.
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Returns the best root move the latest search proved before it was stopped.
+	 *
+	 * @param previousBest, best move of the previous, shallower search.
+	 * @return the best move so far, or null if there is none.
+	 */
+	public OthelloAction getPartialResult(OthelloAction previousBest) {
+		if (previousBest == null || partialMove == OthelloPosition.PASS
+				|| previousBest.getSquare() != partialFirstMove) {
+			return null;
+		}
+		return OthelloAction.fromSquare(partialMove);
+	}
+
+	/**
+	 * Returns the move ordering used by the search.
+	 *
+	 * @return the ordering, with its cutoff counters.
+	 */
+	public MoveOrdering getMoveOrdering() {
+		return ordering;
+	}
+
+	/**
+	 * Returns the number of nodes visited so far, over all searches.
+	 *
+	 * @return node count.
+	 */
+	public long getNodeCount() {
+		return nodes;
+	}
+
 	/**
 	 * Picks the best move from the given position by alphaBeta search.
 	 *
@@ -108,57 +237,90 @@ public class AlphaBeta implements OthelloAlgorithm {
 	 * @return best action.
 	 */
 	public OthelloAction evaluate(OthelloPosition pos) throws IllegalMoveException {
+		partialMove = OthelloPosition.PASS;
+		ensureTable();
 		stopTimeOrNot();
-		OthelloAction bestAction = null;
+		ensureMoveLists(searchDepth);
+		ordering.newSearch(searchDepth);
+		int bestMove = OthelloPosition.PASS;
 
 		// Keeps track on the best action from the root (current position).
-		LinkedList<OthelloAction> possibleActions = pos.getMoves();
+		int[] moves = moveLists[0];
+		int moveCount = pos.getMoves(moves);
 
 		// We stop at the bottom of the tree or if no possible move is available.
-		if(possibleActions.isEmpty()){
+		if (moveCount == 0) {
 			return new OthelloAction("pass");
 		}
 
+		// The best move from the previous iteration is searched first.
+		int symmetry = tableSymmetry(pos);
+		long key = pos.getHash(symmetry);
+		long entry = table.probe(key);
+		int hashMove = hashMove(entry, symmetry);
+		ordering.order(pos, moves, moveCount, 0, searchDepth, hashMove);
+
 		// Initiate the best score at the beginning from which color is to play.
 		int bestScore = bestScoreAtstart(pos);
 
+		// The whole search walks this one copy with doMove/undoMove, the caller's position is left alone.
+		OthelloPosition board = searchBoard(pos, evaluator);
+
 			// White to move.
 			if (pos.toMove()) {
-				for (OthelloAction action : possibleActions) {
+				for (int i = 0; i < moveCount; i++) {
 					stopTimeOrNot();
-					OthelloPosition newPos = pos.makeMove(action);
-
-					int score = minValue(newPos, NEG_INFINITY, POS_INFINITY, searchDepth - 1);
+					board.doMove(moves[i]);
+					int alpha = Math.max(windowAlpha, bestScore);
+					int score = minValue(board, alpha, windowBeta, searchDepth - 1);
+					board.undoMove();
+					provePartialMove(moves, i, score > alpha);
 
 					if (score > bestScore) {
 						bestScore = score;
-						bestAction = action;
+						bestMove = moves[i];
+					}
+
+					// Failed high, the real score is above the window.
+					if (bestScore >= windowBeta) {
+						break;
 					}
 				}
 			}
 
 			// Black to move.
 			else {
-				for (OthelloAction action : possibleActions) {
+				for (int i = 0; i < moveCount; i++) {
 					stopTimeOrNot();
-					OthelloPosition newPos = pos.makeMove(action);
-
-					int score = maxValue(newPos, NEG_INFINITY, POS_INFINITY, searchDepth - 1);
+					board.doMove(moves[i]);
+					int beta = Math.min(windowBeta, bestScore);
+					int score = maxValue(board, windowAlpha, beta, searchDepth - 1);
+					board.undoMove();
+					provePartialMove(moves, i, score < beta);
 
 					if (score < bestScore) {
 						bestScore = score;
-						bestAction = action;
+						bestMove = moves[i];
+					}
+
+					// Failed low, the real score is below the window.
+					if (bestScore <= windowAlpha) {
+						break;
 					}
 				}
 			}
 
 		// If the time ran out before anything could be evaluated.
-		if (bestAction == null) {
-			return possibleActions.getFirst();
+		if (bestMove == OthelloPosition.PASS) {
+			return OthelloAction.fromSquare(moves[0]);
 		}
 
-		// Return the best move.
-		return bestAction;
+		// Inside the root window the best move's score is exact, outside it is a bound.
+		table.store(key, searchDepth, boundType(bestScore, windowAlpha, windowBeta), bestScore, tableMove(bestMove, symmetry));
+		score = bestScore;
+
+		// Only the root move is turned into an OthelloAction, for printing.
+		return OthelloAction.fromSquare(bestMove);
 	}
 
 	/**
@@ -166,7 +328,8 @@ public class AlphaBeta implements OthelloAlgorithm {
 	 *
 	 * Looks forward and hands back the highest score found.
 	 * The method also uses alpha and beta to cut branches
-	 * that will not make a better result.
+	 * that will not make a better result. Children are visited
+	 * in place on <code>pos</code> with doMove/undoMove.
 	 *
 	 * @param pos, position to evaluate from.
 	 * @param alpha, current best lower bound.
@@ -174,34 +337,63 @@ public class AlphaBeta implements OthelloAlgorithm {
 	 * @param depth, depth to search.
 	 * @return score for white player.
 	 */
-	private int maxValue(OthelloPosition pos, int alpha, int beta, int depth) throws IllegalMoveException{
+	private int maxValue(OthelloPosition pos, int alpha, int beta, int depth) {
 		stopTimeOrNot();
-		LinkedList<OthelloAction> possibleActions = pos.getMoves();
+		nodes++;
 
-		// We stop at the bottom of the tree or if no possible move is available.
-		if(depth == 0 || possibleActions.isEmpty()) {
-			return evaluator.evaluate(pos);
+		// We stop at the bottom of the tree.
+		if (depth == 0) {
+			return evaluator.evaluate(pos, alpha, beta);
 		}
 
-		int maxVal = NEG_INFINITY;
+		// A stored result that is deep enough can answer the node directly.
+		int symmetry = tableSymmetry(pos);
+		long key = pos.getHash(symmetry);
+		long entry = table.probe(key);
+		if (entry != TranspositionTable.MISS && TranspositionTable.depthOf(entry) >= depth
+				&& cutsOff(entry, alpha, beta)) {
+			return TranspositionTable.scoreOf(entry);
+		}
 
-		// For each possible action.
-		for(OthelloAction action : possibleActions) {
-			stopTimeOrNot();
+		int[] moves = moveLists[searchDepth - depth];
+		int moveCount = pos.getMoves(moves);
 
-			OthelloPosition newPos = pos.makeMove(action);
+		// We also stop if no possible move is available.
+		if (moveCount == 0) {
+			return evaluator.evaluate(pos, alpha, beta);
+		}
 
+		int ply = searchDepth - depth;
+		int hashMove = hashMove(entry, symmetry);
+		ordering.order(pos, moves, moveCount, ply, depth, hashMove);
+
+		int alphaAtStart = alpha;
+		int maxVal = NEG_INFINITY;
+		int bestMove = moves[0];
+
+		// For each possible move.
+		for (int i = 0; i < moveCount; i++) {
 			// Saves the biggest value from maxVal and the result from minVal().
-			maxVal = Math.max(maxVal, minValue(newPos, alpha, beta, depth - 1));
+			pos.doMove(moves[i]);
+			int score = minValue(pos, alpha, beta, depth - 1);
+			pos.undoMove();
+
+			if (score > maxVal) {
+				maxVal = score;
+				bestMove = moves[i];
+			}
 
 			// Updates alfa.
 			alpha = Math.max(alpha, maxVal);
 
 			// If alfa is greater or equal to beta we can prune.
 			if (alpha >= beta) {
+				ordering.cutoff(moves[i], ply, depth, true, i);
 				break;
 			}
 		}
+
+		table.store(key, depth, boundType(maxVal, alphaAtStart, beta), maxVal, tableMove(bestMove, symmetry));
 		return maxVal;
 	}
 
@@ -210,7 +402,8 @@ public class AlphaBeta implements OthelloAlgorithm {
 	 *
 	 * Looks forward and hands back the lowest score found.
 	 * The method also uses alpha and beta to cut branches
-	 * that will not make a better result.
+	 * that will not make a better result. Children are visited
+	 * in place on <code>pos</code> with doMove/undoMove.
 	 *
 	 * @param pos, position to evaluate from.
 	 * @param alpha, current best lower bound.
@@ -218,37 +411,195 @@ public class AlphaBeta implements OthelloAlgorithm {
 	 * @param depth, depth to search.
 	 * @return score for black player.
 	 */
-	private int minValue(OthelloPosition pos, int alpha, int beta, int depth) throws IllegalMoveException{
+	private int minValue(OthelloPosition pos, int alpha, int beta, int depth) {
 		stopTimeOrNot();
-		LinkedList<OthelloAction> possibleActions = pos.getMoves();
+		nodes++;
 
-		// We stop and evaluate at the bottom of the tree or if no possible move is available.
-		if(depth == 0 || possibleActions.isEmpty()) {
-			return evaluator.evaluate(pos);
+		// We stop and evaluate at the bottom of the tree.
+		if (depth == 0) {
+			return evaluator.evaluate(pos, alpha, beta);
 		}
 
-		int minVal = POS_INFINITY;
+		// A stored result that is deep enough can answer the node directly.
+		int symmetry = tableSymmetry(pos);
+		long key = pos.getHash(symmetry);
+		long entry = table.probe(key);
+		if (entry != TranspositionTable.MISS && TranspositionTable.depthOf(entry) >= depth
+				&& cutsOff(entry, alpha, beta)) {
+			return TranspositionTable.scoreOf(entry);
+		}
+
+		int[] moves = moveLists[searchDepth - depth];
+		int moveCount = pos.getMoves(moves);
+
+		// We also stop and evaluate if no possible move is available.
+		if (moveCount == 0) {
+			return evaluator.evaluate(pos, alpha, beta);
+		}
 
-		// For each possible action.
-		for(OthelloAction action : possibleActions) {
-			stopTimeOrNot();
+		int ply = searchDepth - depth;
+		int hashMove = hashMove(entry, symmetry);
+		ordering.order(pos, moves, moveCount, ply, depth, hashMove);
 
-			OthelloPosition newPos = pos.makeMove(action);
+		int betaAtStart = beta;
+		int minVal = POS_INFINITY;
+		int bestMove = moves[0];
 
+		// For each possible move.
+		for (int i = 0; i < moveCount; i++) {
 			// Saves the smallest value from minVal and the result from maxVal().
-			minVal = Math.min(minVal, maxValue(newPos, alpha, beta, depth - 1));
+			pos.doMove(moves[i]);
+			int score = maxValue(pos, alpha, beta, depth - 1);
+			pos.undoMove();
+
+			if (score < minVal) {
+				minVal = score;
+				bestMove = moves[i];
+			}
 
 			// Updates beta.
 			beta = Math.min(beta, minVal);
 
 			// If alfa is greater or equal to beta we can prune.
 			if(alpha >= beta) {
+				ordering.cutoff(moves[i], ply, depth, false, i);
 				break;
 			}
 		}
+
+		table.store(key, depth, boundType(minVal, alpha, betaAtStart), minVal, tableMove(bestMove, symmetry));
 		return minVal;
 	}
 
+	/**
+	 * Updates the best root move proven so far after a root move was searched.
+	 *
+	 * The first move is the best so far once it is searched. A later move
+	 * takes over if its score beat the window it was searched with, which
+	 * proves it better than every move before it.
+	 *
+	 * @param moves, ordered root moves.
+	 * @param index, index of the move that was searched.
+	 * @param improved, true if the move's score beat its window.
+	 */
+	protected void provePartialMove(int[] moves, int index, boolean improved) {
+		if (index == 0) {
+			partialFirstMove = moves[0];
+			partialMove = moves[0];
+		} else if (improved) {
+			partialMove = moves[index];
+		}
+	}
+
+	/**
+	 * Checks if a stored result settles a node searched with the given window.
+	 *
+	 * @param entry, entry from the transposition table.
+	 * @param alpha, current best lower bound.
+	 * @param beta, current best upper bound.
+	 * @return true if the stored score can be returned without searching.
+	 */
+	protected static boolean cutsOff(long entry, int alpha, int beta) {
+		int score = TranspositionTable.scoreOf(entry);
+		switch (TranspositionTable.boundOf(entry)) {
+			case TranspositionTable.EXACT:
+				return true;
+			case TranspositionTable.LOWER:
+				return score >= beta;
+			default:
+				return score <= alpha;
+		}
+	}
+
+	/**
+	 * Tells what kind of bound a search result is for the window it was searched with.
+	 *
+	 * @param score, value found for the node.
+	 * @param alpha, lower bound the node was searched with.
+	 * @param beta, upper bound the node was searched with.
+	 * @return EXACT, LOWER or UPPER.
+	 */
+	protected static int boundType(int score, int alpha, int beta) {
+		if (score <= alpha) {
+			return TranspositionTable.UPPER;
+		}
+		if (score >= beta) {
+			return TranspositionTable.LOWER;
+		}
+		return TranspositionTable.EXACT;
+	}
+
+	/**
+	 * Returns the symmetry a position is stored in the transposition table
+	 * with. Positions with at most CANONICAL_MAX_DISCS discs are stored in
+	 * their canonical form, so that their symmetric forms share the entry.
+	 *
+	 * @param pos, position to look up or store.
+	 * @return symmetry to map the position by, 0 for none.
+	 */
+	protected static int tableSymmetry(OthelloPosition pos) {
+		if (64 - pos.getEmptyCount() > CANONICAL_MAX_DISCS) {
+			return 0;
+		}
+		return pos.getCanonicalSymmetry();
+	}
+
+	/**
+	 * Returns the best move of a table entry as a move of the position looked up.
+	 *
+	 * @param entry, entry from the table, or MISS.
+	 * @param symmetry, symmetry the position was looked up with.
+	 * @return square 0-63, or <code>OthelloPosition.PASS</code> if there is none.
+	 */
+	protected static int hashMove(long entry, int symmetry) {
+		if (entry == TranspositionTable.MISS) {
+			return OthelloPosition.PASS;
+		}
+		return OthelloPosition.transformSquare(TranspositionTable.moveOf(entry), OthelloPosition.inverse(symmetry));
+	}
+
+	/**
+	 * Returns a move of the position as it is stored in the table.
+	 *
+	 * @param move, square 0-63 or PASS.
+	 * @param symmetry, symmetry the position is stored with.
+	 * @return the mapped move.
+	 */
+	protected static int tableMove(int move, int symmetry) {
+		return OthelloPosition.transformSquare(move, symmetry);
+	}
+
+	/**
+	 * Copies the root position for the search to walk. If the evaluator is an
+	 * <code>IncrementalEvaluator</code>, the copy keeps its running score, so
+	 * the leaves do not have to sum up the discs.
+	 *
+	 * @param pos, root position.
+	 * @param eval, evaluator used at the leaves of the copy.
+	 * @return copy of the position.
+	 */
+	protected static OthelloPosition searchBoard(OthelloPosition pos, OthelloEvaluator eval) {
+		OthelloPosition board = pos.clone();
+		if (eval instanceof IncrementalEvaluator) {
+			board.setSquareValues(((IncrementalEvaluator) eval).getSquareValues());
+		}
+		return board;
+	}
+
+	/**
+	 * Makes sure there is one move buffer for every ply down to the given depth.
+	 *
+	 * The buffers are only reallocated when a deeper search than before is asked
+	 * for, so the search itself does not allocate anything.
+	 *
+	 * @param depth, depth of the coming search.
+	 */
+	protected void ensureMoveLists(int depth) {
+		if (moveLists.length <= depth) {
+			moveLists = new int[depth + 1][OthelloPosition.MAX_MOVES];
+		}
+	}
+
 	/**
 	 * Initial best score at the root:
 	 *
@@ -0,0 +1,611 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Command line benchmarks for the search code.
+ *
+ * Usage:
+ *   java Benchmark endgame [empties] [positions] [seed]
+ *   java Benchmark parallel [depth] [positions] [seed] [threads]
+ *   java Benchmark heuristics [boards] [seed]
+ *   java Benchmark terms [positions] [seed]
+ *   java Benchmark patterns [games] [seed]
+ *   java Benchmark cache [depth] [positions] [seed]
+ *
+ * Subcommands:
+ *   endgame     Solves positions with the given number of empty squares and
+ *               prints the time and nodes of every solve and the totals.
+ *   parallel    Searches midgame positions to a fixed depth with the serial
+ *               and the parallel search and prints the speedup and the extra
+ *               nodes the parallel search needs.
+ *   heuristics  Checks that TableHeuristics gives the same score as
+ *               Heuristics on random boards and compares their speed.
+ *   terms       Times every term of MobilityEvaluator on its own and the
+ *               whole evaluation, in nanoseconds per position.
+ *   patterns    Writes random pattern weights to a file and maps it, then
+ *               checks that PatternEvaluator scores the positions of random
+ *               games the same when it updates its pattern numbers as when
+ *               it computes them from scratch, and compares their speed.
+ *   cache       Runs iterative deepening searches with several evaluators,
+ *               with and without a CachingEvaluator around them, and prints
+ *               the hit rate of the cache and the time of both searches.
+ *
+ * Positions are made by random play from the start position, so the same
+ * seed always gives the same positions. The heuristics boards are filled at
+ * random instead, so that they also cover boards no game reaches.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class Benchmark {
+
+	private static final long ONE_MILLISECOND_OF_NANOS = 1_000_000L;
+	private static final int DEFAULT_EMPTIES = 20;
+	private static final int DEFAULT_POSITIONS = 10;
+	private static final long DEFAULT_SEED = 1L;
+	private static final int DEFAULT_DEPTH = 8;
+	private static final int MIDGAME_EMPTIES = 40;
+	private static final int DEFAULT_BOARDS = 4_000_000;
+	private static final int BOARD_BATCH = 1024;
+	private static final int DEFAULT_TERM_POSITIONS = 20_000;
+	private static final int TERM_ROUNDS = 50;
+	private static final int MIN_TERM_EMPTIES = 10;
+	private static final int MAX_TERM_EMPTIES = 50;
+	private static final String[] TERMS = {"positional", "frontier", "stability", "mobility", "all"};
+	private static final int DEFAULT_GAMES = 10_000;
+	private static final String[] CACHED_EVALUATORS = {"CountingEvaluator", "Heuristics", "MobilityEvaluator"};
+
+	public static void main(String[] args) throws IllegalMoveException, IOException {
+		if (args.length < 1) {
+			printUsageAndExit();
+		}
+
+		switch (args[0]) {
+			case "endgame":
+				endgame(intArgument(args, 1, DEFAULT_EMPTIES), intArgument(args, 2, DEFAULT_POSITIONS),
+						longArgument(args, 3, DEFAULT_SEED));
+				break;
+			case "parallel":
+				parallel(intArgument(args, 1, DEFAULT_DEPTH), intArgument(args, 2, DEFAULT_POSITIONS),
+						longArgument(args, 3, DEFAULT_SEED),
+						intArgument(args, 4, Runtime.getRuntime().availableProcessors()));
+				break;
+			case "heuristics":
+				heuristics(intArgument(args, 1, DEFAULT_BOARDS), longArgument(args, 2, DEFAULT_SEED));
+				break;
+			case "terms":
+				terms(intArgument(args, 1, DEFAULT_TERM_POSITIONS), longArgument(args, 2, DEFAULT_SEED));
+				break;
+			case "patterns":
+				patterns(intArgument(args, 1, DEFAULT_GAMES), longArgument(args, 2, DEFAULT_SEED));
+				break;
+			case "cache":
+				cache(intArgument(args, 1, DEFAULT_DEPTH), intArgument(args, 2, DEFAULT_POSITIONS),
+						longArgument(args, 3, DEFAULT_SEED));
+				break;
+			default:
+				printUsageAndExit();
+		}
+	}
+
+	/**
+	 * Solves random positions exactly and prints how long it took.
+	 *
+	 * @param empties, number of empty squares of the positions.
+	 * @param positions, number of positions to solve.
+	 * @param seed, seed of the random play.
+	 */
+	private static void endgame(int empties, int positions, long seed) throws IllegalMoveException {
+		Random random = new Random(seed);
+		long totalNanos = 0;
+		long totalNodes = 0;
+
+		for (int i = 0; i < positions; i++) {
+			OthelloPosition position = randomPosition(random, empties);
+			EndgameSolver solver = new EndgameSolver();
+
+			long startNanos = System.nanoTime();
+			OthelloAction move = solver.evaluate(position);
+			long nanos = System.nanoTime() - startNanos;
+
+			totalNanos += nanos;
+			totalNodes += solver.getNodeCount();
+			System.out.printf("%3d  %-6s score %4d  %10d nodes  %8d ms%n", i + 1, move,
+					solver.getScore(), solver.getNodeCount(), nanos / ONE_MILLISECOND_OF_NANOS);
+		}
+
+		System.out.printf("endgame: %d positions with %d empties, %d nodes, %d ms, %.0f nodes/s%n",
+				positions, empties, totalNodes, totalNanos / ONE_MILLISECOND_OF_NANOS,
+				totalNodes * 1e9 / Math.max(1L, totalNanos));
+	}
+
+	/**
+	 * Searches random midgame positions to a fixed depth, first serially and
+	 * then in parallel, each with a new table, and compares them.
+	 *
+	 * @param depth, depth to search.
+	 * @param positions, number of positions to search.
+	 * @param seed, seed of the random play.
+	 * @param threads, number of worker threads of the parallel search.
+	 */
+	private static void parallel(int depth, int positions, long seed, int threads) throws IllegalMoveException {
+		Random random = new Random(seed);
+		long serialNanos = 0;
+		long parallelNanos = 0;
+		long serialNodes = 0;
+		long parallelNodes = 0;
+		int sameScore = 0;
+
+		ParallelAlphaBeta parallelSearch = new ParallelAlphaBeta(Heuristics::new, threads);
+		parallelSearch.setSearchDepth(depth);
+
+		for (int i = 0; i < positions; i++) {
+			OthelloPosition position = randomPosition(random, MIDGAME_EMPTIES);
+
+			AlphaBeta serialSearch = new PrincipalVariationSearch(new Heuristics(), depth);
+			long startNanos = System.nanoTime();
+			serialSearch.evaluate(position);
+			long serialTime = System.nanoTime() - startNanos;
+
+			parallelSearch.setTranspositionTable(new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+			long nodesBefore = parallelSearch.getNodeCount();
+			startNanos = System.nanoTime();
+			parallelSearch.evaluate(position);
+			long parallelTime = System.nanoTime() - startNanos;
+			long nodes = parallelSearch.getNodeCount() - nodesBefore;
+
+			serialNanos += serialTime;
+			parallelNanos += parallelTime;
+			serialNodes += serialSearch.getNodeCount();
+			parallelNodes += nodes;
+			if (serialSearch.getScore() == parallelSearch.getScore()) {
+				sameScore++;
+			}
+			System.out.printf("%3d  serial %9d nodes %7d ms   parallel %9d nodes %7d ms%n", i + 1,
+					serialSearch.getNodeCount(), serialTime / ONE_MILLISECOND_OF_NANOS,
+					nodes, parallelTime / ONE_MILLISECOND_OF_NANOS);
+		}
+
+		System.out.printf("parallel: depth %d, %d threads, speedup %.2f, search overhead %.1f%%, same score %d/%d%n",
+				depth, threads, (double) serialNanos / Math.max(1L, parallelNanos),
+				100.0 * (parallelNodes - serialNodes) / Math.max(1L, serialNodes), sameScore, positions);
+	}
+
+	/**
+	 * Evaluates random boards with <code>Heuristics</code> and
+	 * <code>TableHeuristics</code>, exits with an error at the first board
+	 * they score differently, and prints how long each took. Then plays
+	 * random games on one position that keeps the running score of
+	 * <code>TableHeuristics</code> and checks it the same way after every
+	 * move and every undo.
+	 *
+	 * @param boards, number of boards to evaluate.
+	 * @param seed, seed of the boards.
+	 */
+	private static void heuristics(int boards, long seed) {
+		Random random = new Random(seed);
+		OthelloEvaluator reference = new Heuristics();
+		OthelloEvaluator table = new TableHeuristics();
+		OthelloPosition[] batch = new OthelloPosition[BOARD_BATCH];
+		int[] expected = new int[BOARD_BATCH];
+		int[] actual = new int[BOARD_BATCH];
+		long referenceNanos = 0;
+		long tableNanos = 0;
+		int evaluated = 0;
+
+		while (evaluated < boards) {
+			for (int i = 0; i < batch.length; i++) {
+				batch[i] = randomBoard(random);
+			}
+
+			long startNanos = System.nanoTime();
+			for (int i = 0; i < batch.length; i++) {
+				expected[i] = reference.evaluate(batch[i]);
+			}
+			referenceNanos += System.nanoTime() - startNanos;
+
+			startNanos = System.nanoTime();
+			for (int i = 0; i < batch.length; i++) {
+				actual[i] = table.evaluate(batch[i]);
+			}
+			tableNanos += System.nanoTime() - startNanos;
+
+			for (int i = 0; i < batch.length; i++) {
+				if (expected[i] != actual[i]) {
+					System.err.println("Heuristics " + expected[i] + ", TableHeuristics " + actual[i] + " for " + batch[i]);
+					System.exit(1);
+				}
+			}
+			evaluated += batch.length;
+		}
+
+		System.out.printf("heuristics: %d boards, all equal, Heuristics %.1f ns, TableHeuristics %.1f ns per board%n",
+				evaluated, (double) referenceNanos / evaluated, (double) tableNanos / evaluated);
+
+		int[] moves = new int[OthelloPosition.MAX_MOVES];
+		for (int game = 0; game < boards / BOARD_BATCH; game++) {
+			OthelloPosition position = new OthelloPosition();
+			position.initialize();
+			position.setSquareValues(((IncrementalEvaluator) table).getSquareValues());
+			int plies = 0;
+			int passes = 0;
+
+			while (passes < 2) {
+				int moveCount = position.getMoves(moves);
+				if (moveCount == 0) {
+					position.doPass();
+					passes++;
+				} else {
+					position.doMove(moves[random.nextInt(moveCount)]);
+					passes = 0;
+				}
+				plies++;
+				checkEvaluation(reference, table, position);
+			}
+			for (; plies > 0; plies--) {
+				position.undoMove();
+				checkEvaluation(reference, table, position);
+			}
+		}
+		System.out.printf("heuristics: %d games with a running score, all equal%n", boards / BOARD_BATCH);
+	}
+
+	/**
+	 * Times each term of <code>MobilityEvaluator</code> and the whole
+	 * evaluation on positions from random games. Every term is run over all
+	 * positions many times and the fastest round is reported, so that the
+	 * times are taken after the JIT compiler is done.
+	 *
+	 * @param positions, number of positions.
+	 * @param seed, seed of the random play.
+	 */
+	private static void terms(int positions, long seed) throws IllegalMoveException {
+		Random random = new Random(seed);
+		OthelloPosition[] boards = new OthelloPosition[positions];
+		for (int i = 0; i < positions; i++) {
+			boards[i] = randomPosition(random, MIN_TERM_EMPTIES + random.nextInt(MAX_TERM_EMPTIES - MIN_TERM_EMPTIES + 1));
+		}
+
+		long[] bestNanos = new long[TERMS.length];
+		Arrays.fill(bestNanos, Long.MAX_VALUE);
+		int[] results = new int[positions];
+		for (int round = 0; round < TERM_ROUNDS; round++) {
+			for (int term = 0; term < TERMS.length; term++) {
+				bestNanos[term] = Math.min(bestNanos[term], timeTerm(term, boards, results));
+			}
+		}
+
+		for (int term = 0; term < TERMS.length; term++) {
+			System.out.printf("%-11s %6.1f ns%n", TERMS[term], (double) bestNanos[term] / positions);
+		}
+	}
+
+	/**
+	 * Computes one term for every position.
+	 *
+	 * @param term, index into <code>TERMS</code>.
+	 * @param boards, positions to evaluate.
+	 * @param results, array the values are written to, so that they are used.
+	 * @return time taken in nanoseconds.
+	 */
+	private static long timeTerm(int term, OthelloPosition[] boards, int[] results) {
+		OthelloEvaluator positional = new TableHeuristics();
+		OthelloEvaluator evaluator = new MobilityEvaluator();
+		long startNanos = System.nanoTime();
+		switch (term) {
+			case 0:
+				for (int i = 0; i < boards.length; i++) {
+					results[i] = positional.evaluate(boards[i]);
+				}
+				break;
+			case 1:
+				for (int i = 0; i < boards.length; i++) {
+					results[i] = MobilityEvaluator.frontier(boards[i].getBlack(), boards[i].getWhite());
+				}
+				break;
+			case 2:
+				for (int i = 0; i < boards.length; i++) {
+					results[i] = MobilityEvaluator.stability(boards[i].getWhite(), boards[i].getBlack());
+				}
+				break;
+			case 3:
+				for (int i = 0; i < boards.length; i++) {
+					results[i] = MobilityEvaluator.mobility(boards[i].getWhite(), boards[i].getBlack());
+				}
+				break;
+			default:
+				for (int i = 0; i < boards.length; i++) {
+					results[i] = evaluator.evaluate(boards[i]);
+				}
+				break;
+		}
+		return System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * Checks <code>PatternEvaluator</code> with random weights. Plays random
+	 * games and takes all their moves back, and after every move and every
+	 * undo evaluates the position with one evaluator that has seen all the
+	 * positions before, and so only updates the pattern numbers of the
+	 * changed squares, and with a new one that computes them from scratch.
+	 * Exits with an error at the first position they score differently.
+	 *
+	 * @param games, number of games to play.
+	 * @param seed, seed of the weights and the moves.
+	 */
+	private static void patterns(int games, long seed) throws IOException {
+		Random random = new Random(seed);
+		short[][] stages = new short[PatternEvaluator.STAGES][PatternEvaluator.STAGE_SIZE];
+		for (short[] stage : stages) {
+			for (int i = 0; i < stage.length; i++) {
+				stage[i] = (short) random.nextInt();
+			}
+		}
+		Path file = Files.createTempFile("patterns", ".weights");
+		PatternWeights weights;
+		try {
+			PatternWeights.write(file, stages);
+			weights = PatternWeights.map(file);
+		} finally {
+			Files.delete(file);
+		}
+
+		PatternEvaluator incremental = new PatternEvaluator(weights);
+		int[] moves = new int[OthelloPosition.MAX_MOVES];
+		long incrementalNanos = 0;
+		long scratchNanos = 0;
+		long evaluated = 0;
+		for (int game = 0; game < games; game++) {
+			OthelloPosition position = new OthelloPosition();
+			position.initialize();
+			int plies = 0;
+			int passes = 0;
+
+			while (passes < 2 || plies > 0) {
+				if (passes < 2) {
+					int moveCount = position.getMoves(moves);
+					if (moveCount == 0) {
+						position.doPass();
+						passes++;
+					} else {
+						position.doMove(moves[random.nextInt(moveCount)]);
+						passes = 0;
+					}
+					plies++;
+				} else {
+					position.undoMove();
+					plies--;
+				}
+
+				long startNanos = System.nanoTime();
+				int actual = incremental.evaluate(position);
+				incrementalNanos += System.nanoTime() - startNanos;
+				startNanos = System.nanoTime();
+				int expected = new PatternEvaluator(weights).evaluate(position);
+				scratchNanos += System.nanoTime() - startNanos;
+				evaluated++;
+
+				if (expected != actual) {
+					System.err.println("From scratch " + expected + ", updated " + actual + " for " + position);
+					System.exit(1);
+				}
+			}
+		}
+
+		System.out.printf("patterns: %d positions, all equal, updated %.1f ns, from scratch %.1f ns per position%n",
+				evaluated, (double) incrementalNanos / evaluated, (double) scratchNanos / evaluated);
+	}
+
+	/**
+	 * Searches random midgame positions with iterative deepening to a fixed
+	 * depth, as Othello does, once with each evaluator and once with each
+	 * evaluator wrapped in a <code>CachingEvaluator</code>.
+	 *
+	 * @param depth, last depth of the iterative deepening.
+	 * @param positions, number of positions to search.
+	 * @param seed, seed of the random play.
+	 */
+	private static void cache(int depth, int positions, long seed) throws IllegalMoveException {
+		Random random = new Random(seed);
+		OthelloPosition[] boards = new OthelloPosition[positions];
+		for (int i = 0; i < positions; i++) {
+			boards[i] = randomPosition(random, MIDGAME_EMPTIES);
+		}
+
+		for (String name : CACHED_EVALUATORS) {
+			long plainNanos = 0;
+			long cachedNanos = 0;
+			long lookups = 0;
+			long hits = 0;
+			int sameScore = 0;
+
+			for (OthelloPosition position : boards) {
+				AlphaBeta plainSearch = new PrincipalVariationSearch(newEvaluator(name));
+				long startNanos = System.nanoTime();
+				int plainScore = deepen(plainSearch, position, depth);
+				plainNanos += System.nanoTime() - startNanos;
+
+				CachingEvaluator cache = new CachingEvaluator(newEvaluator(name));
+				AlphaBeta cachedSearch = new PrincipalVariationSearch(cache);
+				startNanos = System.nanoTime();
+				int cachedScore = deepen(cachedSearch, position, depth);
+				cachedNanos += System.nanoTime() - startNanos;
+
+				lookups += cache.getLookups();
+				hits += cache.getHits();
+				if (plainScore == cachedScore) {
+					sameScore++;
+				}
+			}
+
+			System.out.printf("cache: %-17s hit rate %5.1f%%, %7d ms without cache, %7d ms with, same score %d/%d%n",
+					name, 100.0 * hits / Math.max(1L, lookups), plainNanos / ONE_MILLISECOND_OF_NANOS,
+					cachedNanos / ONE_MILLISECOND_OF_NANOS, sameScore, positions);
+		}
+	}
+
+	/**
+	 * Searches a position at depth 1, 2 and so on up to the given depth.
+	 *
+	 * @param search, the search, with its own transposition table.
+	 * @param position, position to search.
+	 * @param depth, last depth.
+	 * @return score of the last search.
+	 */
+	private static int deepen(AlphaBeta search, OthelloPosition position, int depth) throws IllegalMoveException {
+		for (int d = 1; d <= depth; d++) {
+			search.setSearchDepth(d);
+			search.evaluate(position);
+		}
+		return search.getScore();
+	}
+
+	/**
+	 * Makes an evaluator from the name of its class.
+	 *
+	 * @param name, one of <code>CACHED_EVALUATORS</code>.
+	 * @return a new evaluator.
+	 */
+	private static OthelloEvaluator newEvaluator(String name) {
+		switch (name) {
+			case "CountingEvaluator":
+				return new CountingEvaluator();
+			case "Heuristics":
+				return new Heuristics();
+			default:
+				return new MobilityEvaluator();
+		}
+	}
+
+	/**
+	 * Exits with an error if the two evaluators score the position differently.
+	 *
+	 * @param reference, evaluator giving the expected score.
+	 * @param tested, evaluator that is checked.
+	 * @param position, position to evaluate.
+	 */
+	private static void checkEvaluation(OthelloEvaluator reference, OthelloEvaluator tested, OthelloPosition position) {
+		int expected = reference.evaluate(position);
+		int actual = tested.evaluate(position);
+		if (expected != actual) {
+			System.err.println("Expected " + expected + ", got " + actual + " for " + position);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Fills a board at random. Every square is empty, white or black, with a
+	 * share of empty squares that differs from board to board, and either
+	 * player may have the move.
+	 *
+	 * @param random, source of the board.
+	 * @return a random board, not necessarily one a game can reach.
+	 */
+	private static OthelloPosition randomBoard(Random random) {
+		long occupied = random.nextLong();
+		switch (random.nextInt(3)) {
+			case 0:
+				occupied &= random.nextLong();
+				break;
+			case 1:
+				occupied |= random.nextLong();
+				break;
+			default:
+				break;
+		}
+		long colour = random.nextLong();
+
+		OthelloPosition position = new OthelloPosition();
+		position.white = occupied & colour;
+		position.black = occupied & ~colour;
+		position.maxPlayer = random.nextBoolean();
+		return position;
+	}
+
+	/**
+	 * Plays random moves from the start position until the given number of
+	 * empty squares is left. Games that end too early are thrown away, as are
+	 * positions where the player to move has to pass.
+	 *
+	 * @param random, source of the moves.
+	 * @param empties, number of empty squares wanted.
+	 * @return a position with that many empty squares and a legal move.
+	 */
+	static OthelloPosition randomPosition(Random random, int empties) throws IllegalMoveException {
+		int[] moves = new int[OthelloPosition.MAX_MOVES];
+		while (true) {
+			OthelloPosition position = new OthelloPosition();
+			position.initialize();
+			boolean passed = false;
+
+			while (position.getEmptyCount() > empties) {
+				int moveCount = position.getMoves(moves);
+				if (moveCount == 0) {
+					if (passed) {
+						break;
+					}
+					passed = true;
+					position = position.makeMove(new OthelloAction("pass"));
+					continue;
+				}
+				passed = false;
+				position = position.makeMove(OthelloAction.fromSquare(moves[random.nextInt(moveCount)]));
+			}
+
+			if (position.getEmptyCount() == empties && position.getMoves(moves) > 0) {
+				return position;
+			}
+		}
+	}
+
+	/**
+	 * Reads an optional integer argument.
+	 *
+	 * @param args, command line arguments.
+	 * @param index, index of the argument.
+	 * @param defaultValue, value used when the argument is not given.
+	 * @return the value of the argument.
+	 */
+	private static int intArgument(String[] args, int index, int defaultValue) {
+		return (int) longArgument(args, index, defaultValue);
+	}
+
+	/**
+	 * Reads an optional long argument.
+	 *
+	 * @param args, command line arguments.
+	 * @param index, index of the argument.
+	 * @param defaultValue, value used when the argument is not given.
+	 * @return the value of the argument.
+	 */
+	private static long longArgument(String[] args, int index, long defaultValue) {
+		if (args.length <= index) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(args[index]);
+		} catch (NumberFormatException e) {
+			System.err.println("Argument " + (index + 1) + " must be an integer!");
+			System.exit(1);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Prints how to use the benchmarks and exits.
+	 */
+	private static void printUsageAndExit() {
+		System.err.println("Usage: java Benchmark endgame [empties] [positions] [seed]");
+		System.err.println("       java Benchmark parallel [depth] [positions] [seed] [threads]");
+		System.err.println("       java Benchmark heuristics [boards] [seed]");
+		System.err.println("       java Benchmark terms [positions] [seed]");
+		System.err.println("       java Benchmark patterns [games] [seed]");
+		System.err.println("       java Benchmark cache [depth] [positions] [seed]");
+		System.exit(1);
+	}
+}
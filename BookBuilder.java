@@ -0,0 +1,188 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Builds the opening book Othello looks positions up in, see
+ * <code>OpeningBook</code>.
+ *
+ * Usage:
+ *   java BookBuilder [plies] [depth] [file] [threads]
+ *
+ * Args:
+ *   plies    Every position up to this many moves from the start is searched.
+ *   depth    Search depth of every position.
+ *   file     Book file to write.
+ *   threads  Number of threads searching positions.
+ *
+ * The tree is expanded from the start position breadth first, with every
+ * legal move at every position, so that the book has an answer whatever the
+ * opponent plays. Positions that are symmetric forms of one seen before are
+ * dropped, which leaves about an eighth of them.
+ *
+ * The positions are then searched on all threads at once, each thread taking
+ * the next position that is left. Every position is searched by iterative
+ * deepening to the full depth, with the evaluator Othello uses. The threads
+ * share one transposition table: the positions of the book transpose into
+ * each other, so a thread often finds the deeper part of its tree already
+ * searched by another.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class BookBuilder {
+
+	private static final int DEFAULT_PLIES = 6;
+	private static final int DEFAULT_DEPTH = 12;
+	private static final String DEFAULT_BOOK_FILE = "othello.book";
+	private static final int TABLE_SIZE_MB = 256;
+	private static final int PROGRESS_POSITIONS = 100;
+	private static final double ONE_SECOND_OF_NANOS = 1e9;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length > 4) {
+			printUsageAndExit();
+		}
+		int plies = intArgument(args, 0, DEFAULT_PLIES);
+		int depth = intArgument(args, 1, DEFAULT_DEPTH);
+		File file = new File(args.length > 2 ? args[2] : DEFAULT_BOOK_FILE);
+		int threads = Math.max(1, intArgument(args, 3, Runtime.getRuntime().availableProcessors()));
+
+		List<OthelloPosition> positions = expand(plies);
+		System.out.printf("expand: %d positions up to %d plies%n", positions.size(), plies);
+
+		long[] hashes = new long[positions.size()];
+		int[] moves = new int[positions.size()];
+		int[] scores = new int[positions.size()];
+		search(positions, depth, threads, hashes, moves, scores);
+		OpeningBook.write(file, hashes, moves, scores);
+		System.out.println("wrote " + file);
+	}
+
+	/**
+	 * Returns every position up to the given number of plies from the start,
+	 * one of each set of symmetric positions, in order of the ply.
+	 *
+	 * @param plies, number of moves from the start position.
+	 * @return the positions, the start position first.
+	 */
+	private static List<OthelloPosition> expand(int plies) {
+		OthelloPosition start = new OthelloPosition();
+		start.initialize();
+
+		List<OthelloPosition> positions = new ArrayList<>();
+		Set<Long> seen = new HashSet<>();
+		positions.add(start);
+		seen.add(start.getCanonicalHash());
+
+		int first = 0;
+		for (int ply = 0; ply < plies; ply++) {
+			int last = positions.size();
+			for (int i = first; i < last; i++) {
+				OthelloPosition position = positions.get(i);
+				for (OthelloAction action : position.getMoves()) {
+					try {
+						OthelloPosition next = position.makeMove(action);
+						if (next.getMoveMask() != 0 && seen.add(next.getCanonicalHash())) {
+							positions.add(next);
+						}
+					} catch (IllegalMoveException e) {
+						throw new IllegalStateException("getMoves returned an illegal move", e);
+					}
+				}
+			}
+			first = last;
+		}
+		return positions;
+	}
+
+	/**
+	 * Searches the positions on several threads and writes down their best
+	 * move as it is in their canonical form.
+	 *
+	 * @param positions, positions to search.
+	 * @param depth, search depth.
+	 * @param threads, number of threads.
+	 * @param hashes, written with the canonical hash of every position.
+	 * @param moves, written with the canonical best move of every position.
+	 * @param scores, written with the score of every best move, seen from white.
+	 */
+	private static void search(List<OthelloPosition> positions, int depth, int threads,
+			long[] hashes, int[] moves, int[] scores) throws InterruptedException {
+		Supplier<OthelloEvaluator> evaluators = Othello.getEvaluators(true);
+		TranspositionTable table = new TranspositionTable(TABLE_SIZE_MB);
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger done = new AtomicInteger();
+		long startNanos = System.nanoTime();
+
+		List<Thread> searchers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			Thread searcher = new Thread(() -> {
+				AlphaBeta search = new PrincipalVariationSearch(evaluators.get());
+				search.setTranspositionTable(table);
+
+				for (int i = next.getAndIncrement(); i < positions.size(); i = next.getAndIncrement()) {
+					OthelloPosition position = positions.get(i);
+					int symmetry = position.getCanonicalSymmetry();
+					OthelloAction best = null;
+					try {
+						for (int d = 1; d <= depth; d++) {
+							search.setSearchDepth(d);
+							best = search.evaluate(position);
+						}
+					} catch (IllegalMoveException e) {
+						throw new IllegalStateException("The search made an illegal move", e);
+					}
+					hashes[i] = position.getHash(symmetry);
+					moves[i] = OthelloPosition.transformSquare(best.getSquare(), symmetry);
+					scores[i] = search.getScore();
+
+					int count = done.incrementAndGet();
+					if (count % PROGRESS_POSITIONS == 0 && count < positions.size()) {
+						report(count, startNanos, threads);
+					}
+				}
+			});
+			searchers.add(searcher);
+			searcher.start();
+		}
+		for (Thread searcher : searchers) {
+			searcher.join();
+		}
+		report(positions.size(), startNanos, threads);
+	}
+
+	private static void report(int positions, long startNanos, int threads) {
+		double seconds = (System.nanoTime() - startNanos) / ONE_SECOND_OF_NANOS;
+		System.out.printf("search: %d positions, %.1f s, %.2f s per position per core%n",
+				positions, seconds, seconds * threads / positions);
+	}
+
+	private static int intArgument(String[] args, int index, int defaultValue) {
+		if (args.length <= index) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(args[index]);
+		} catch (NumberFormatException e) {
+			System.err.println("Argument " + (index + 1) + " must be an integer!");
+			System.exit(1);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Prints how to use the builder and exits.
+	 */
+	private static void printUsageAndExit() {
+		System.err.println("Usage: java BookBuilder [plies] [depth] [file] [threads]");
+		System.exit(1);
+	}
+}
@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * Evaluator that remembers the scores of another evaluator.
+ *
+ * Iterative deepening searches the same leaves again at every depth, and
+ * positions reached by different move orders are evaluated once per order.
+ * The scores are kept in a direct-mapped table of longs indexed by the
+ * Zobrist hash of the position. An entry holds the upper 32 bits of the hash
+ * and the score in one long, so an entry is read and written at once and the
+ * table needs no locks even if threads share it. A new score simply replaces
+ * the one in its slot.
+ *
+ * Only exact scores are stored. A score outside the search window may be
+ * only a bound, see <code>OthelloEvaluator</code>, and most leaves are
+ * searched with a null window, where every score is outside it, so on a miss
+ * the wrapped evaluator is asked for the exact score whatever the window.
+ *
+ * If the wrapped evaluator keeps a running score in the position, see
+ * <code>IncrementalEvaluator</code>, its square values are passed on.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class CachingEvaluator implements IncrementalEvaluator {
+
+	/**
+	 * Default size of the table in megabytes.
+	 */
+	public static final int DEFAULT_SIZE_MB = 1;
+
+	private static final long CHECK_MASK = 0xFFFFFFFF00000000L;
+	private static final long SCORE_MASK = 0x00000000FFFFFFFFL;
+
+	private final OthelloEvaluator evaluator;
+	private final long[] entries;
+	private final int indexMask;
+
+	private long lookups;
+	private long hits;
+
+	/**
+	 * Wraps an evaluator with a table of the default size.
+	 *
+	 * @param evaluator, evaluator whose scores are kept.
+	 */
+	public CachingEvaluator(OthelloEvaluator evaluator) {
+		this(evaluator, DEFAULT_SIZE_MB);
+	}
+
+	/**
+	 * Wraps an evaluator with a table of at most the given size. The number
+	 * of entries is rounded down to a power of two.
+	 *
+	 * @param evaluator, evaluator whose scores are kept.
+	 * @param sizeInMb, memory to use in megabytes.
+	 */
+	public CachingEvaluator(OthelloEvaluator evaluator, int sizeInMb) {
+		this.evaluator = evaluator;
+		long count = Math.max(1L, ((long) sizeInMb << 20) / Long.BYTES);
+		int size = Integer.highestOneBit((int) Math.min(count, 1 << 30));
+		entries = new long[size];
+		indexMask = size - 1;
+	}
+
+	/**
+	 * Evaluates the given position, from the table if it is there.
+	 *
+	 * @param pos, position to evaluate.
+	 * @return integer score, higher is better for White, lower is better for Black.
+	 */
+	@Override
+	public int evaluate(OthelloPosition pos) {
+		long hash = pos.getHash();
+		int index = (int) hash & indexMask;
+		long entry = entries[index];
+		lookups++;
+		if (entry != 0 && ((entry ^ hash) & CHECK_MASK) == 0) {
+			hits++;
+			return (int) entry;
+		}
+
+		int score = evaluator.evaluate(pos);
+		entries[index] = (hash & CHECK_MASK) | (score & SCORE_MASK);
+		return score;
+	}
+
+	/**
+	 * Returns the square values of the wrapped evaluator.
+	 *
+	 * @return the values, or null if the wrapped evaluator keeps no running score.
+	 */
+	@Override
+	public int[] getSquareValues() {
+		if (evaluator instanceof IncrementalEvaluator) {
+			return ((IncrementalEvaluator) evaluator).getSquareValues();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of positions evaluated through the table.
+	 *
+	 * @return number of lookups.
+	 */
+	public long getLookups() {
+		return lookups;
+	}
+
+	/**
+	 * Returns the number of positions whose score was found in the table.
+	 *
+	 * @return number of hits.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the share of the lookups that were hits.
+	 *
+	 * @return hit rate from 0 to 1, 0 before the first lookup.
+	 */
+	public double getHitRate() {
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Empties the table and sets the counters to 0.
+	 */
+	public void clear() {
+		Arrays.fill(entries, 0L);
+		lookups = 0;
+		hits = 0;
+	}
+}
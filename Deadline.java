@@ -0,0 +1,105 @@
+/**
+ * Time control for the search that does not read the clock at every node.
+ *
+ * The search calls <code>check</code> once per node. Most calls only count
+ * down a node counter, the clock is read when the counter runs out. After
+ * every read the counter is set to the number of nodes the search visited in
+ * the last <code>CHECK_PERIOD_NANOS</code>, so the clock is read about that
+ * often whatever the speed of the search, and the search stops well within a
+ * millisecond of the deadline.
+ *
+ * Once the deadline has passed, or another thread has stopped the search
+ * with <code>expire</code>, a volatile flag is set and every following check
+ * throws at once, without reading the clock. The exception is a shared
+ * instance without a stack trace, so stopping costs nothing.
+ *
+ * Searches in several threads can share one deadline. The counter is not
+ * synchronised then, which only changes how often the clock is read.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class Deadline {
+
+	/**
+	 * How often the clock should be read, in nanoseconds.
+	 */
+	private static final long CHECK_PERIOD_NANOS = 100_000L;
+
+	private static final int FIRST_INTERVAL = 64;
+	private static final int MIN_INTERVAL = 1;
+	private static final int MAX_INTERVAL = 1 << 16;
+
+	private volatile long stopNanos = Long.MAX_VALUE;
+	private volatile boolean expired;
+
+	private int interval = FIRST_INTERVAL;
+	private int countdown = FIRST_INTERVAL;
+	private long lastCheckNanos;
+
+	/**
+	 * Sets the deadline. A deadline that has already passed stops the search at once.
+	 *
+	 * @param stopNanos, absolute deadline in nanoseconds.
+	 */
+	public void setStopTime(long stopNanos) {
+		this.stopNanos = stopNanos;
+		expired = System.nanoTime() >= stopNanos;
+		countdown = 0;
+	}
+
+	/**
+	 * Returns the deadline.
+	 *
+	 * @return absolute deadline in nanoseconds.
+	 */
+	public long getStopTime() {
+		return stopNanos;
+	}
+
+	/**
+	 * Stops every search that checks this deadline, from any thread.
+	 */
+	public void expire() {
+		expired = true;
+	}
+
+	/**
+	 * Returns true if the deadline has been seen to pass or the search was stopped.
+	 *
+	 * @return true if the search should stop.
+	 */
+	public boolean isExpired() {
+		return expired;
+	}
+
+	/**
+	 * Called by the search once per node.
+	 *
+	 * @throws TimeIsUpExeption, if the deadline has passed.
+	 */
+	public void check() {
+		if (expired) {
+			throw TimeIsUpExeption.TIME_IS_UP;
+		}
+		if (--countdown > 0) {
+			return;
+		}
+
+		long now = System.nanoTime();
+		if (now >= stopNanos) {
+			expired = true;
+			throw TimeIsUpExeption.TIME_IS_UP;
+		}
+
+		long elapsed = now - lastCheckNanos;
+		if (lastCheckNanos != 0L && elapsed > 0L) {
+			long nodesPerPeriod = interval * CHECK_PERIOD_NANOS / elapsed;
+			interval = (int) Math.max(MIN_INTERVAL, Math.min(MAX_INTERVAL, nodesPerPeriod));
+		}
+		lastCheckNanos = now;
+		countdown = interval;
+	}
+}
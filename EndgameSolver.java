@@ -0,0 +1,561 @@
+/**
+ * Exact endgame solver.
+ *
+ * Searches to the end of the game and returns the move with the best final
+ * disc differential, with empty squares counted for the winner. No heuristic
+ * evaluation is used, so the result is perfect play when the search finishes.
+ *
+ * Moves are ordered fastest-first (the reply that leaves the opponent the
+ * fewest moves is tried first) while many squares are empty, and by parity
+ * near the end: moves into quadrants with an odd number of empty squares come
+ * before moves into even ones. The solver can also run in win/loss/draw mode,
+ * which searches with a null window around 0 and only proves the outcome.
+ *
+ * The last few plies work on raw bitboards. With at most four empty squares
+ * the recursion leaves <code>OthelloPosition</code> and tries the empty
+ * squares directly, without move lists or the undo stack, and the last
+ * square is scored from its flip count alone.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class EndgameSolver implements OthelloAlgorithm {
+
+	/**
+	 * Positions with more empty squares than this are never tried.
+	 */
+	public static final int MAX_EMPTIES = 26;
+
+	/**
+	 * Up to this many empty squares moves are ordered by parity only,
+	 * fastest-first costs more than it saves there.
+	 */
+	private static final int PARITY_ORDER_EMPTIES = 7;
+
+	/**
+	 * Up to this many empty squares the search is done by the bitboard kernels.
+	 */
+	private static final int KERNEL_EMPTIES = 4;
+
+	/**
+	 * From this many empty squares the transposition table is used.
+	 */
+	private static final int TABLE_MIN_EMPTIES = 8;
+
+	/**
+	 * Nodes needed to solve a position grows about this much per empty square.
+	 * Measured on positions from 10 to 20 empty squares, rounded up.
+	 */
+	private static final double NODE_GROWTH_PER_EMPTY = 2.6;
+
+	/**
+	 * Nodes needed to solve a position with ten empty squares.
+	 */
+	private static final double NODES_AT_TEN_EMPTIES = 12_000;
+
+	private static final int NEG_INFINITY = -Integer.MAX_VALUE;
+	private static final int POS_INFINITY = Integer.MAX_VALUE;
+
+	/**
+	 * The four quadrants of the board, the empty regions used for parity.
+	 */
+	private static final long[] QUADRANTS = {
+			0x000000000F0F0F0FL, 0x00000000F0F0F0F0L,
+			0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+	};
+
+	private static final int CORNER_BONUS = 4;
+	private static final long CORNERS = 0x8100000000000081L;
+
+	private final Deadline deadline = new Deadline();
+	private boolean winLossDraw;
+	private int windowAlpha = NEG_INFINITY;
+	private int windowBeta = POS_INFINITY;
+	private int score;
+	private long nodes;
+
+	/**
+	 * First root move and best root move proven so far, PASS before any is solved.
+	 */
+	private int partialFirstMove = OthelloPosition.PASS;
+	private int partialMove = OthelloPosition.PASS;
+
+	private final TranspositionTable table;
+
+	/**
+	 * One move buffer and one ordering buffer per number of empty squares.
+	 */
+	private final int[][] moveLists = new int[65][OthelloPosition.MAX_MOVES];
+	private final int[][] moveScores = new int[65][OthelloPosition.MAX_MOVES];
+
+	/**
+	 * Creates a solver with a transposition table of the default size.
+	 */
+	public EndgameSolver() {
+		table = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
+	}
+
+	/**
+	 * Creates a solver with the given transposition table.
+	 *
+	 * @param table, table to probe and store results in.
+	 */
+	public EndgameSolver(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * The solver plays perfectly and needs no evaluator, the call is ignored.
+	 *
+	 * @param evaluator, not used.
+	 */
+	public void setEvaluator(OthelloEvaluator evaluator) {
+	}
+
+	/**
+	 * The solver always searches to the end of the game, the call is ignored.
+	 *
+	 * @param depth, not used.
+	 */
+	public void setSearchDepth(int depth) {
+	}
+
+	/**
+	 * Sets a stop time for search.
+	 *
+	 * @param stop, absolute deadline in nanoseconds.
+	 */
+	public void setStopTime(long stop) {
+		deadline.setStopTime(stop);
+	}
+
+	/**
+	 * Sets the window the root is searched with, in discs seen from white.
+	 *
+	 * @param alpha, lower bound of the window.
+	 * @param beta, upper bound of the window.
+	 */
+	public void setWindow(int alpha, int beta) {
+		windowAlpha = alpha;
+		windowBeta = beta;
+	}
+
+	/**
+	 * Turns win/loss/draw mode on or off. In that mode only the sign of the
+	 * score is exact, which is much faster to prove than the full score.
+	 *
+	 * @param enabled, true to only prove the outcome.
+	 */
+	public void setWinLossDraw(boolean enabled) {
+		winLossDraw = enabled;
+	}
+
+	/**
+	 * Returns the final disc differential of the latest solved position, seen
+	 * from white. In win/loss/draw mode only its sign is exact.
+	 *
+	 * @return final disc differential.
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Returns the best root move the latest solve proved before it was stopped.
+	 *
+	 * @param previousBest, best move of the previous search.
+	 * @return the best move so far, or null if there is none.
+	 */
+	public OthelloAction getPartialResult(OthelloAction previousBest) {
+		if (previousBest == null || partialMove == OthelloPosition.PASS
+				|| previousBest.getSquare() != partialFirstMove) {
+			return null;
+		}
+		return OthelloAction.fromSquare(partialMove);
+	}
+
+	/**
+	 * Returns the number of nodes visited so far, over all searches.
+	 *
+	 * @return node count.
+	 */
+	public long getNodeCount() {
+		return nodes;
+	}
+
+	/**
+	 * Estimates how many nodes a solve of a position needs.
+	 *
+	 * @param empties, number of empty squares.
+	 * @return expected number of nodes.
+	 */
+	public static double estimateNodes(int empties) {
+		return NODES_AT_TEN_EMPTIES * Math.pow(NODE_GROWTH_PER_EMPTY, empties - 10);
+	}
+
+	/**
+	 * Returns the largest number of empty squares that can be solved in the
+	 * given time at the given speed.
+	 *
+	 * @param nodesPerSecond, measured speed of the solver.
+	 * @param seconds, time available.
+	 * @return number of empty squares, at most MAX_EMPTIES.
+	 */
+	public static int solvableEmpties(double nodesPerSecond, double seconds) {
+		int empties = 0;
+		while (empties < MAX_EMPTIES && estimateNodes(empties + 1) <= nodesPerSecond * seconds) {
+			empties++;
+		}
+		return empties;
+	}
+
+	/**
+	 * Solves the position and returns the best move.
+	 *
+	 * If there is no legal moves the method will return pass.
+	 *
+	 * @param pos, current game position.
+	 * @return best action.
+	 * @throws TimeIsUpExeption if the stop time is reached before the solve is done.
+	 */
+	public OthelloAction evaluate(OthelloPosition pos) {
+		partialMove = OthelloPosition.PASS;
+		stopTimeOrNot();
+		OthelloPosition board = pos.clone();
+		int empties = board.getEmptyCount();
+
+		int[] moves = moveLists[empties];
+		int moveCount = board.getMoves(moves);
+		if (moveCount == 0) {
+			return new OthelloAction("pass");
+		}
+
+		boolean whiteToMove = board.toMove();
+		int alpha;
+		int beta;
+		if (winLossDraw) {
+			alpha = -1;
+			beta = 1;
+		} else {
+			alpha = whiteToMove ? windowAlpha : -windowBeta;
+			beta = whiteToMove ? windowBeta : -windowAlpha;
+		}
+
+		long entry = table.probe(board.getHash());
+		int hashMove = entry == TranspositionTable.MISS ? OthelloPosition.PASS : TranspositionTable.moveOf(entry);
+		orderMoves(board, moves, moveCount, empties, hashMove);
+
+		int bestScore = NEG_INFINITY;
+		int bestMove = moves[0];
+		for (int i = 0; i < moveCount; i++) {
+			int childScore = searchChild(board, moves[i], i, alpha, beta, empties - 1);
+			if (i == 0) {
+				partialFirstMove = moves[0];
+				partialMove = moves[0];
+			} else if (childScore > alpha) {
+				partialMove = moves[i];
+			}
+			if (childScore > bestScore) {
+				bestScore = childScore;
+				bestMove = moves[i];
+				alpha = Math.max(alpha, childScore);
+			}
+			if (alpha >= beta) {
+				break;
+			}
+		}
+
+		score = whiteToMove ? bestScore : -bestScore;
+		return OthelloAction.fromSquare(bestMove);
+	}
+
+	/**
+	 * Solves a node from the view of the player to move.
+	 *
+	 * @param pos, position to search, changed and restored in place.
+	 * @param alpha, lower bound.
+	 * @param beta, upper bound.
+	 * @param empties, number of empty squares.
+	 * @return final disc differential for the player to move, a bound if outside the window.
+	 */
+	private int solve(OthelloPosition pos, int alpha, int beta, int empties) {
+		stopTimeOrNot();
+
+		if (empties <= KERNEL_EMPTIES) {
+			long own = pos.toMove() ? pos.getWhite() : pos.getBlack();
+			long opp = pos.toMove() ? pos.getBlack() : pos.getWhite();
+			if (empties == 0) {
+				nodes++;
+				return finalScore(own, opp, 0);
+			}
+			if (empties == 1) {
+				return solveLast(own, opp, Long.numberOfTrailingZeros(~(own | opp)));
+			}
+			return solveFew(own, opp, alpha, beta, ~(own | opp), empties, false);
+		}
+		nodes++;
+
+		int[] moves = moveLists[empties];
+		int moveCount = pos.getMoves(moves);
+		if (moveCount == 0) {
+			long own = pos.toMove() ? pos.getWhite() : pos.getBlack();
+			long opp = pos.toMove() ? pos.getBlack() : pos.getWhite();
+			if (OthelloPosition.legalMoves(opp, own) == 0) {
+				return finalScore(own, opp, empties);
+			}
+			pos.doPass();
+			int passScore = -solve(pos, -beta, -alpha, empties);
+			pos.undoMove();
+			return passScore;
+		}
+
+		long key = 0L;
+		int hashMove = OthelloPosition.PASS;
+		boolean useTable = empties >= TABLE_MIN_EMPTIES;
+		if (useTable) {
+			key = pos.getHash();
+			long entry = table.probe(key);
+			if (entry != TranspositionTable.MISS) {
+				if (AlphaBeta.cutsOff(entry, alpha, beta)) {
+					return TranspositionTable.scoreOf(entry);
+				}
+				hashMove = TranspositionTable.moveOf(entry);
+			}
+		}
+
+		orderMoves(pos, moves, moveCount, empties, hashMove);
+
+		int alphaAtStart = alpha;
+		int bestScore = NEG_INFINITY;
+		int bestMove = moves[0];
+		for (int i = 0; i < moveCount; i++) {
+			int childScore = searchChild(pos, moves[i], i, alpha, beta, empties - 1);
+			if (childScore > bestScore) {
+				bestScore = childScore;
+				bestMove = moves[i];
+				alpha = Math.max(alpha, childScore);
+			}
+			if (alpha >= beta) {
+				break;
+			}
+		}
+
+		if (useTable) {
+			table.store(key, empties, AlphaBeta.boundType(bestScore, alphaAtStart, beta), bestScore, bestMove);
+		}
+		return bestScore;
+	}
+
+	/**
+	 * Solves a position with two to four empty squares on raw bitboards.
+	 *
+	 * The empty squares are tried directly, those in odd quadrants first. A
+	 * square where nothing flips is not a move.
+	 *
+	 * @param own, discs of the player to move.
+	 * @param opp, discs of the opponent.
+	 * @param alpha, lower bound.
+	 * @param beta, upper bound.
+	 * @param empty, the empty squares.
+	 * @param empties, number of empty squares, 2 to 4.
+	 * @param passed, true if the opponent just passed.
+	 * @return final disc differential for the player to move, a bound if outside the window.
+	 */
+	private int solveFew(long own, long opp, int alpha, int beta, long empty, int empties, boolean passed) {
+		nodes++;
+
+		int bestScore = NEG_INFINITY;
+		long odd = oddRegions(empty);
+		for (int pass = 0; pass < 2; pass++) {
+			long squares = pass == 0 ? empty & odd : empty & ~odd;
+			while (squares != 0) {
+				int square = Long.numberOfTrailingZeros(squares);
+				squares &= squares - 1;
+
+				long flipped = OthelloPosition.flips(own, opp, square);
+				if (flipped == 0) {
+					continue;
+				}
+				long bit = 1L << square;
+				long newOwn = opp & ~flipped;
+				long newOpp = own | flipped | bit;
+				long newEmpty = empty & ~bit;
+
+				int childScore;
+				if (empties == 2) {
+					childScore = -solveLast(newOwn, newOpp, Long.numberOfTrailingZeros(newEmpty));
+				} else {
+					childScore = -solveFew(newOwn, newOpp, -beta, -alpha, newEmpty, empties - 1, false);
+				}
+
+				if (childScore > bestScore) {
+					bestScore = childScore;
+					if (childScore > alpha) {
+						alpha = childScore;
+						if (alpha >= beta) {
+							return bestScore;
+						}
+					}
+				}
+			}
+		}
+
+		if (bestScore == NEG_INFINITY) {
+			if (passed) {
+				return finalScore(own, opp, empties);
+			}
+			return -solveFew(opp, own, -beta, -alpha, empty, empties, true);
+		}
+		return bestScore;
+	}
+
+	/**
+	 * Scores a position with one empty square from the flip counts.
+	 *
+	 * The player to move plays the square if it flips something, otherwise the
+	 * opponent does, otherwise the game ends with the square empty.
+	 *
+	 * @param own, discs of the player to move.
+	 * @param opp, discs of the opponent.
+	 * @param square, the empty square.
+	 * @return final disc differential for the player to move.
+	 */
+	private int solveLast(long own, long opp, int square) {
+		nodes++;
+
+		// 63 discs, so the difference is odd and never a draw.
+		int difference = 2 * Long.bitCount(own) - 63;
+		int flipped = Long.bitCount(OthelloPosition.flips(own, opp, square));
+		if (flipped != 0) {
+			return difference + 2 * flipped + 1;
+		}
+		flipped = Long.bitCount(OthelloPosition.flips(opp, own, square));
+		if (flipped != 0) {
+			return difference - 2 * flipped - 1;
+		}
+		return difference > 0 ? difference + 1 : difference - 1;
+	}
+
+	/**
+	 * Plays one child and solves it, with a null window scout for every child
+	 * but the first.
+	 *
+	 * @param pos, position to play the move in.
+	 * @param move, square to play.
+	 * @param moveIndex, position of the move in the ordered list.
+	 * @param alpha, lower bound of the parent.
+	 * @param beta, upper bound of the parent.
+	 * @param empties, number of empty squares after the move.
+	 * @return score of the child for the parent's player to move.
+	 */
+	private int searchChild(OthelloPosition pos, int move, int moveIndex, int alpha, int beta, int empties) {
+		pos.doMove(move);
+		int childScore;
+		if (moveIndex == 0) {
+			childScore = -solve(pos, -beta, -alpha, empties);
+		} else {
+			childScore = -solve(pos, -alpha - 1, -alpha, empties);
+			if (childScore > alpha && childScore < beta) {
+				childScore = -solve(pos, -beta, -alpha, empties);
+			}
+		}
+		pos.undoMove();
+		return childScore;
+	}
+
+	/**
+	 * Sorts the moves of a node. The hash move goes first. With many empty
+	 * squares the others are sorted fastest-first, with few by parity.
+	 *
+	 * @param pos, position the moves are played in.
+	 * @param moves, move buffer.
+	 * @param moveCount, number of moves.
+	 * @param empties, number of empty squares.
+	 * @param hashMove, move from the transposition table, or PASS.
+	 */
+	private void orderMoves(OthelloPosition pos, int[] moves, int moveCount, int empties, int hashMove) {
+		if (moveCount < 2) {
+			return;
+		}
+
+		long own = pos.toMove() ? pos.getWhite() : pos.getBlack();
+		long opp = pos.toMove() ? pos.getBlack() : pos.getWhite();
+		long oddRegions = oddRegions(~(own | opp));
+		boolean fastestFirst = empties > PARITY_ORDER_EMPTIES;
+		int[] scores = moveScores[empties];
+
+		for (int i = 0; i < moveCount; i++) {
+			int move = moves[i];
+			long bit = 1L << move;
+			int moveScore = (oddRegions & bit) != 0 ? 1 : 0;
+			if (move == hashMove) {
+				moveScore = POS_INFINITY;
+			} else if (fastestFirst) {
+				long flipped = OthelloPosition.flips(own, opp, move);
+				int replies = Long.bitCount(OthelloPosition.legalMoves(opp & ~flipped, own | flipped | bit));
+				moveScore += -16 * replies + ((CORNERS & bit) != 0 ? CORNER_BONUS : 0);
+			}
+			scores[i] = moveScore;
+		}
+
+		// Insertion sort, the lists are short.
+		for (int i = 1; i < moveCount; i++) {
+			int move = moves[i];
+			int moveScore = scores[i];
+			int j = i - 1;
+			while (j >= 0 && scores[j] < moveScore) {
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			scores[j + 1] = moveScore;
+		}
+	}
+
+	/**
+	 * Returns the squares of the quadrants that have an odd number of empty squares.
+	 *
+	 * @param empty, empty squares.
+	 * @return union of the odd quadrants.
+	 */
+	private static long oddRegions(long empty) {
+		long odd = 0L;
+		for (long quadrant : QUADRANTS) {
+			if ((Long.bitCount(empty & quadrant) & 1) != 0) {
+				odd |= quadrant;
+			}
+		}
+		return odd;
+	}
+
+	/**
+	 * Scores a finished game for the player to move. Empty squares go to the winner.
+	 *
+	 * @param own, discs of the player to move.
+	 * @param opp, discs of the opponent.
+	 * @param empties, number of empty squares.
+	 * @return final disc differential for the player to move.
+	 */
+	private static int finalScore(long own, long opp, int empties) {
+		int difference = Long.bitCount(own) - Long.bitCount(opp);
+		if (difference > 0) {
+			return difference + empties;
+		}
+		if (difference < 0) {
+			return difference - empties;
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks if the stop time has been reached.
+	 *
+	 * @throws TimeIsUpExeption, if stop time is reached.
+	 */
+	private void stopTimeOrNot() {
+		deadline.check();
+	}
+}
@@ -39,11 +39,11 @@ public class Heuristics implements OthelloEvaluator{
 
         for (int i = 1; i <= OthelloPosition.BOARD_SIZE; i++) {
             for (int j = 1; j <= OthelloPosition.BOARD_SIZE; j++) {
-                if (pos.board[i][j] == 'W') {
+                if (pos.isWhiteSquare(i, j)) {
                     totalWeightWhite += weightedMatrix[i][j];
                 }
 
-                if (pos.board[i][j] == 'B') {
+                if (pos.isBlackSquare(i, j)) {
                     totalWeightBlack += weightedMatrix[i][j];
                 }
             }
@@ -0,0 +1,27 @@
+/**
+ * An evaluator whose score is partly a sum of fixed values of the discs.
+ *
+ * That part is not recomputed at every leaf. The search hands the values to
+ * the position it walks with <code>setSquareValues</code>, the position keeps
+ * a running score as discs are placed and flipped, and <code>evaluate</code>
+ * reads it with <code>getSquareScore</code>. Only the part of the score that
+ * depends on how the discs lie together is computed at the leaf.
+ *
+ * The evaluator must give correct scores for positions that do not keep the
+ * running score as well, by checking <code>getSquareValues</code>.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public interface IncrementalEvaluator extends OthelloEvaluator {
+
+	/**
+	 * Returns the value of a white disc on each square, a black disc counts
+	 * negative. The same array is returned every time and it is never changed.
+	 *
+	 * @return 64 values, indexed by square, or null to keep no running score.
+	 */
+	public int[] getSquareValues();
+}
@@ -0,0 +1,129 @@
+import java.util.function.Supplier;
+
+/**
+ * Lazy SMP, a parallel search made of independent searches that share one
+ * transposition table.
+ *
+ * The main thread runs the normal iterative deepening search. Each helper
+ * thread runs its own iterative deepening search of the same position with
+ * its own algorithm, and the only thing the threads share is the table. The
+ * helpers fill the table with results the main thread can use, so the main
+ * thread gets deeper in the same time. Every other helper starts a ply
+ * deeper than the main thread, and every helper adds a little noise to its
+ * move ordering, so that the threads do not all search the same tree.
+ *
+ * Only the main thread's result is played, the helpers' results are only
+ * used through the table.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class LazySmp {
+
+	/**
+	 * Seed of the first helper's ordering noise, the others count up from it.
+	 */
+	private static final long PERTURBATION_SEED = 0x5EED1L;
+
+	private final AlphaBeta[] helpers;
+	private final Thread[] threads;
+
+	/**
+	 * Creates the helpers, which all use the given table.
+	 *
+	 * @param helperCount, number of helper threads, 0 for none.
+	 * @param table, transposition table shared with the main thread.
+	 * @param factory, makes one new search algorithm for every helper.
+	 */
+	public LazySmp(int helperCount, TranspositionTable table, Supplier<AlphaBeta> factory) {
+		helpers = new AlphaBeta[helperCount];
+		threads = new Thread[helperCount];
+		for (int i = 0; i < helperCount; i++) {
+			helpers[i] = factory.get();
+			helpers[i].setTranspositionTable(table);
+			helpers[i].getMoveOrdering().setPerturbation(PERTURBATION_SEED + i);
+		}
+	}
+
+	/**
+	 * Starts the helpers on a position. They search until the stop time or
+	 * until <code>stop</code> is called.
+	 *
+	 * @param position, position the main thread searches.
+	 * @param stopTimeNanos, the time limit.
+	 */
+	public void start(OthelloPosition position, long stopTimeNanos) {
+		int maxDepth = position.getEmptyCount();
+		for (int i = 0; i < helpers.length; i++) {
+			AlphaBeta helper = helpers[i];
+			OthelloPosition copy = position.clone();
+			int startDepth = 1 + (i + 1) % 2;
+
+			// Set before the thread starts, so that an early stop is not overwritten.
+			helper.setStopTime(stopTimeNanos);
+			String name = "lazy-smp-" + (i + 1);
+			threads[i] = new Thread(() -> search(helper, copy, startDepth, maxDepth), name);
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+	}
+
+	/**
+	 * Stops the helpers and waits for them to finish.
+	 */
+	public void stop() {
+		for (AlphaBeta helper : helpers) {
+			helper.setStopTime(Long.MIN_VALUE);
+		}
+		for (Thread thread : threads) {
+			if (thread == null) {
+				continue;
+			}
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of nodes searched by all helpers.
+	 *
+	 * @return node count.
+	 */
+	public long getNodeCount() {
+		long nodes = 0;
+		for (AlphaBeta helper : helpers) {
+			nodes += helper.getNodeCount();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Iterative deepening of one helper, run until time is up or the search
+	 * reaches the end of the game.
+	 *
+	 * @param helper, the helper's algorithm.
+	 * @param position, the helper's copy of the position.
+	 * @param startDepth, first depth to search.
+	 * @param maxDepth, last depth to search.
+	 */
+	private static void search(AlphaBeta helper, OthelloPosition position, int startDepth, int maxDepth) {
+		helper.setWindow(-Integer.MAX_VALUE, Integer.MAX_VALUE);
+		for (int depth = startDepth; depth <= maxDepth; depth++) {
+			helper.setSearchDepth(depth);
+			try {
+				helper.evaluate(position);
+			} catch (TimeIsUpExeption e) {
+				return;
+			} catch (IllegalMoveException e) {
+				System.err.println("Helper " + Thread.currentThread().getName() + " stopped: " + e);
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,304 @@
+/**
+ * Evaluator that adds mobility, frontier and stability to the square weights
+ * of <code>TableHeuristics</code>.
+ *
+ * All terms are computed on the bitboards with shifts, masks and population
+ * counts:
+ *
+ *   - mobility, the number of legal moves of white minus those of black,
+ *   - frontier, the discs next to an empty square, which give the opponent
+ *     moves later; fewer is better,
+ *   - stability, the discs on the edges that can never be flipped. Which
+ *     discs of an edge are stable is looked up in a table of all 3^8 edges,
+ *     made once when the class is loaded.
+ *
+ * Mobility is by far the most expensive term, so it is computed last and
+ * skipped when it cannot bring the score back into the search window: the
+ * difference in mobility is never larger than the number of empty squares.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class MobilityEvaluator implements IncrementalEvaluator {
+
+    /**
+     * Weight of one legal move, one frontier disc and one stable disc, in the
+     * units of <code>Heuristics</code>, where a corner weighs 120.
+     */
+    static final int MOBILITY_WEIGHT = 8;
+    static final int FRONTIER_WEIGHT = 4;
+    static final int STABILITY_WEIGHT = 12;
+
+    private static final int EDGE_LENGTH = 8;
+    private static final int WHITE = 1;
+    private static final int BLACK = 2;
+
+    private static final long NOT_FIRST_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+    private static final long NOT_LAST_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * Base 3 value of a number written in base 2, so that
+     * <code>TERNARY[white] + 2 * TERNARY[black]</code> indexes an edge.
+     */
+    private static final int[] TERNARY = new int[1 << EDGE_LENGTH];
+
+    /**
+     * For every edge, the squares holding a disc that no sequence of moves
+     * can flip. Digit k of the index, and bit k of the mask, is square k of
+     * the edge, 0 for an empty square, 1 for white and 2 for black.
+     */
+    private static final byte[] EDGE_STABLE;
+
+    static {
+        for (int bits = 0; bits < TERNARY.length; bits++) {
+            int value = 0;
+            for (int k = EDGE_LENGTH - 1; k >= 0; k--) {
+                value = 3 * value + ((bits >>> k) & 1);
+            }
+            TERNARY[bits] = value;
+        }
+        EDGE_STABLE = stableEdges();
+    }
+
+    private final TableHeuristics positional = new TableHeuristics();
+
+    /**
+     * Evaluates the given position.
+     *
+     * @param pos, position to evaluate.
+     * @return integer score, higher is better for White, lower is better for Black.
+     */
+    @Override
+    public int evaluate(OthelloPosition pos) {
+        return evaluate(pos, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Evaluates the given position, without the mobility term if the score
+     * is outside the window whatever the mobility is.
+     *
+     * @param pos, position to evaluate.
+     * @param alpha, lower bound of the window.
+     * @param beta, upper bound of the window.
+     * @return integer score, higher is better for White, lower is better for Black.
+     */
+    @Override
+    public int evaluate(OthelloPosition pos, int alpha, int beta) {
+        long white = pos.getWhite();
+        long black = pos.getBlack();
+
+        int score = positional.evaluate(pos)
+                + FRONTIER_WEIGHT * frontier(black, white)
+                + STABILITY_WEIGHT * stability(white, black);
+
+        int margin = MOBILITY_WEIGHT * Long.bitCount(~(white | black));
+        if (score + margin <= alpha) {
+            return score + margin;
+        }
+        if (score - margin >= beta) {
+            return score - margin;
+        }
+        return score + MOBILITY_WEIGHT * mobility(white, black);
+    }
+
+    /**
+     * Returns the disc values of the square weights, which are kept as a
+     * running score like for <code>TableHeuristics</code>.
+     *
+     * @return the disc values.
+     */
+    @Override
+    public int[] getSquareValues() {
+        return positional.getSquareValues();
+    }
+
+    /**
+     * Returns the number of legal moves of one player minus those of the other.
+     *
+     * @param own, discs of the first player.
+     * @param opp, discs of the second player.
+     * @return difference in legal moves.
+     */
+    static int mobility(long own, long opp) {
+        return Long.bitCount(OthelloPosition.legalMoves(own, opp))
+                - Long.bitCount(OthelloPosition.legalMoves(opp, own));
+    }
+
+    /**
+     * Returns the number of discs next to an empty square of one player
+     * minus those of the other.
+     *
+     * @param own, discs of the first player.
+     * @param opp, discs of the second player.
+     * @return difference in frontier discs.
+     */
+    static int frontier(long own, long opp) {
+        long empty = ~(own | opp);
+        long sideways = ((empty << 1) & NOT_FIRST_COLUMN) | ((empty >>> 1) & NOT_LAST_COLUMN);
+        long nextToEmpty = sideways | (sideways << 8) | (sideways >>> 8) | (empty << 8) | (empty >>> 8);
+        return Long.bitCount(own & nextToEmpty) - Long.bitCount(opp & nextToEmpty);
+    }
+
+    /**
+     * Returns the number of stable edge discs of one player minus those of the other.
+     *
+     * @param own, discs of the first player.
+     * @param opp, discs of the second player.
+     * @return difference in stable discs.
+     */
+    static int stability(long own, long opp) {
+        long stable = stableRows(own, opp);
+        stable |= OthelloPosition.flipDiagonal(stableRows(OthelloPosition.flipDiagonal(own),
+                OthelloPosition.flipDiagonal(opp)));
+        return Long.bitCount(own & stable) - Long.bitCount(opp & stable);
+    }
+
+    /**
+     * Returns the stable discs of the first and last row.
+     *
+     * @param white, white discs.
+     * @param black, black discs.
+     * @return stable squares of the two rows.
+     */
+    private static long stableRows(long white, long black) {
+        long first = EDGE_STABLE[TERNARY[(int) (white & 0xFF)] + 2 * TERNARY[(int) (black & 0xFF)]] & 0xFFL;
+        long last = EDGE_STABLE[TERNARY[(int) (white >>> 56)] + 2 * TERNARY[(int) (black >>> 56)]] & 0xFFL;
+        return first | (last << 56);
+    }
+
+    /**
+     * Finds the stable discs of every edge.
+     *
+     * A disc is stable if no move on the edge flips it and it is still stable
+     * after every such move. A disc can be placed on any empty square of the
+     * edge by either player, since a move may flip discs in other directions
+     * only. Every move fills a square, so the edges are handled from full to
+     * empty and the edges a move leads to are always done first.
+     *
+     * @return stable squares of every edge.
+     */
+    private static byte[] stableEdges() {
+        byte[] stable = new byte[TERNARY[(1 << EDGE_LENGTH) - 1] * 2 + 1];
+        int[] cells = new int[EDGE_LENGTH];
+
+        for (int empties = 0; empties <= EDGE_LENGTH; empties++) {
+            for (int index = 0; index < stable.length; index++) {
+                decode(index, cells);
+                if (countEmpty(cells) != empties) {
+                    continue;
+                }
+
+                int mask = 0;
+                for (int k = 0; k < EDGE_LENGTH; k++) {
+                    if (cells[k] != 0) {
+                        mask |= 1 << k;
+                    }
+                }
+                for (int square = 0; square < EDGE_LENGTH && mask != 0; square++) {
+                    if (cells[square] != 0) {
+                        continue;
+                    }
+                    for (int player = WHITE; player <= BLACK; player++) {
+                        int flipped = play(cells, square, player);
+                        mask &= ~flipped & stable[encode(cells)];
+                        undo(cells, square, flipped);
+                    }
+                }
+                stable[index] = (byte) mask;
+            }
+        }
+        return stable;
+    }
+
+    /**
+     * Places a disc on an edge and flips the discs it encloses along the edge.
+     *
+     * @param cells, the edge, changed in place.
+     * @param square, empty square to play.
+     * @param player, WHITE or BLACK.
+     * @return bit mask of the flipped squares.
+     */
+    private static int play(int[] cells, int square, int player) {
+        int flipped = 0;
+        for (int direction = -1; direction <= 1; direction += 2) {
+            int run = 0;
+            int k = square + direction;
+            while (k >= 0 && k < EDGE_LENGTH && cells[k] == BLACK + WHITE - player) {
+                run |= 1 << k;
+                k += direction;
+            }
+            if (run != 0 && k >= 0 && k < EDGE_LENGTH && cells[k] == player) {
+                flipped |= run;
+            }
+        }
+        cells[square] = player;
+        for (int k = 0; k < EDGE_LENGTH; k++) {
+            if ((flipped & (1 << k)) != 0) {
+                cells[k] = player;
+            }
+        }
+        return flipped;
+    }
+
+    /**
+     * Takes back a move made by <code>play</code>.
+     *
+     * @param cells, the edge, changed in place.
+     * @param square, square that was played.
+     * @param flipped, squares that were flipped.
+     */
+    private static void undo(int[] cells, int square, int flipped) {
+        int opponent = BLACK + WHITE - cells[square];
+        cells[square] = 0;
+        for (int k = 0; k < EDGE_LENGTH; k++) {
+            if ((flipped & (1 << k)) != 0) {
+                cells[k] = opponent;
+            }
+        }
+    }
+
+    /**
+     * Writes the base 3 digits of an index, lowest first.
+     *
+     * @param index, table index.
+     * @param cells, array the digits are written to.
+     */
+    private static void decode(int index, int[] cells) {
+        for (int k = 0; k < cells.length; k++) {
+            cells[k] = index % 3;
+            index /= 3;
+        }
+    }
+
+    /**
+     * Reads the base 3 digits of an index, lowest first.
+     *
+     * @param cells, the digits.
+     * @return table index.
+     */
+    private static int encode(int[] cells) {
+        int index = 0;
+        for (int k = cells.length - 1; k >= 0; k--) {
+            index = 3 * index + cells[k];
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of empty squares of an edge.
+     *
+     * @param cells, the edge.
+     * @return number of zeros.
+     */
+    private static int countEmpty(int[] cells) {
+        int count = 0;
+        for (int cell : cells) {
+            if (cell == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Orders the moves of a node so that alpha-beta finds cutoffs early.
+ *
+ * Moves are tried in this order: the hash move (the best move stored in the
+ * transposition table, which at the root is the best move of the previous
+ * iteration), then the two killer moves of the ply, then the rest sorted by
+ * the history table. Ties in the history table are broken by a static square
+ * value that prefers corners and avoids the squares next to them. Optionally,
+ * when enough depth is left, moves that leave the opponent few replies are
+ * preferred as well.
+ *
+ * The ordering also counts how many cutoffs happen on the first move tried,
+ * which is the usual measure of how good the ordering is.
+ *
+ * Helper threads of a parallel search can add a little noise to the history
+ * part of the ordering, so that they do not all search the same moves in
+ * the same order.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class MoveOrdering {
+
+	private static final int HASH_MOVE_SCORE = Integer.MAX_VALUE;
+	private static final int FIRST_KILLER_SCORE = 1 << 29;
+	private static final int SECOND_KILLER_SCORE = 1 << 28;
+	private static final int HISTORY_LIMIT = 1 << 24;
+	private static final int MOBILITY_WEIGHT = 64;
+
+	/**
+	 * Remaining depth from which opponent mobility is part of the ordering.
+	 */
+	private static final int MOBILITY_MIN_DEPTH = 3;
+
+	/**
+	 * Static value of every square, used when the history table has no opinion.
+	 */
+	private static final int[] SQUARE_ORDER = {
+			100, -20,  10,   5,   5,  10, -20, 100,
+			-20, -50,  -2,  -2,  -2,  -2, -50, -20,
+			 10,  -2,   1,   1,   1,   1,  -2,  10,
+			  5,  -2,   1,   0,   0,   1,  -2,   5,
+			  5,  -2,   1,   0,   0,   1,  -2,   5,
+			 10,  -2,   1,   1,   1,   1,  -2,  10,
+			-20, -50,  -2,  -2,  -2,  -2, -50, -20,
+			100, -20,  10,   5,   5,  10, -20, 100
+	};
+
+	private int[][] killers = new int[0][];
+	private int[][] scores = new int[0][];
+
+	/**
+	 * History scores, indexed by colour (0 white, 1 black) and square.
+	 */
+	private final int[][] history = new int[2][64];
+
+	private boolean mobilityOrdering = false;
+
+	/**
+	 * State of the noise generator, 0 when the ordering is not perturbed.
+	 */
+	private long noiseState = 0L;
+
+	/**
+	 * Largest noise added to a history score.
+	 */
+	private static final int NOISE_MASK = 0xF;
+
+	private long cutoffs;
+	private long firstMoveCutoffs;
+
+	/**
+	 * Turns the opponent-mobility part of the ordering on or off.
+	 *
+	 * @param enabled, true to prefer moves that leave the opponent few replies.
+	 */
+	public void setMobilityOrdering(boolean enabled) {
+		mobilityOrdering = enabled;
+	}
+
+	/**
+	 * Turns noise in the ordering on or off. Moves that are equal or close in
+	 * the history table then come in a different order for every seed.
+	 *
+	 * @param seed, seed of the noise, or 0 for no noise.
+	 */
+	public void setPerturbation(long seed) {
+		noiseState = seed;
+	}
+
+	/**
+	 * Prepares the tables for a search to the given depth.
+	 *
+	 * Killer moves are forgotten and the history table is halved, so that the
+	 * latest iteration counts the most. Buffers only grow when a deeper search
+	 * than before is asked for.
+	 *
+	 * @param depth, depth of the coming search.
+	 */
+	public void newSearch(int depth) {
+		if (killers.length <= depth) {
+			killers = new int[depth + 1][2];
+			scores = new int[depth + 1][OthelloPosition.MAX_MOVES];
+		}
+		for (int[] plyKillers : killers) {
+			plyKillers[0] = OthelloPosition.PASS;
+			plyKillers[1] = OthelloPosition.PASS;
+		}
+		for (int[] colourHistory : history) {
+			for (int i = 0; i < colourHistory.length; i++) {
+				colourHistory[i] >>= 1;
+			}
+		}
+	}
+
+	/**
+	 * Sorts the moves of a node, best candidate first.
+	 *
+	 * @param pos, position the moves are played in.
+	 * @param moves, move buffer.
+	 * @param moveCount, number of moves in the buffer.
+	 * @param ply, distance from the root.
+	 * @param depth, remaining depth of the node.
+	 * @param hashMove, move from the transposition table, or PASS.
+	 */
+	public void order(OthelloPosition pos, int[] moves, int moveCount, int ply, int depth, int hashMove) {
+		if (moveCount < 2) {
+			return;
+		}
+
+		int[] moveScores = scores[ply];
+		int[] colourHistory = history[pos.toMove() ? 0 : 1];
+		int[] plyKillers = killers[ply];
+		boolean withMobility = mobilityOrdering && depth >= MOBILITY_MIN_DEPTH;
+		long own = pos.toMove() ? pos.getWhite() : pos.getBlack();
+		long opp = pos.toMove() ? pos.getBlack() : pos.getWhite();
+
+		for (int i = 0; i < moveCount; i++) {
+			int move = moves[i];
+			if (move == hashMove) {
+				moveScores[i] = HASH_MOVE_SCORE;
+			} else if (move == plyKillers[0]) {
+				moveScores[i] = FIRST_KILLER_SCORE;
+			} else if (move == plyKillers[1]) {
+				moveScores[i] = SECOND_KILLER_SCORE;
+			} else {
+				int score = colourHistory[move] + SQUARE_ORDER[move];
+				if (withMobility) {
+					long flipped = OthelloPosition.flips(own, opp, move);
+					long newOwn = own | flipped | (1L << move);
+					long newOpp = opp & ~flipped;
+					score -= MOBILITY_WEIGHT * Long.bitCount(OthelloPosition.legalMoves(newOpp, newOwn));
+				}
+				if (noiseState != 0L) {
+					score += nextNoise();
+				}
+				moveScores[i] = score;
+			}
+		}
+
+		// Insertion sort, the lists are short.
+		for (int i = 1; i < moveCount; i++) {
+			int move = moves[i];
+			int score = moveScores[i];
+			int j = i - 1;
+			while (j >= 0 && moveScores[j] < score) {
+				moves[j + 1] = moves[j];
+				moveScores[j + 1] = moveScores[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			moveScores[j + 1] = score;
+		}
+	}
+
+	/**
+	 * Records a move that caused a beta cutoff.
+	 *
+	 * @param move, square of the move.
+	 * @param ply, distance from the root.
+	 * @param depth, remaining depth of the node.
+	 * @param whiteMoved, true if white played the move.
+	 * @param moveIndex, position of the move in the ordered list.
+	 */
+	public void cutoff(int move, int ply, int depth, boolean whiteMoved, int moveIndex) {
+		cutoffs++;
+		if (moveIndex == 0) {
+			firstMoveCutoffs++;
+		}
+
+		int[] plyKillers = killers[ply];
+		if (plyKillers[0] != move) {
+			plyKillers[1] = plyKillers[0];
+			plyKillers[0] = move;
+		}
+
+		int[] colourHistory = history[whiteMoved ? 0 : 1];
+		colourHistory[move] = Math.min(HISTORY_LIMIT, colourHistory[move] + depth * depth);
+	}
+
+	/**
+	 * Returns the next noise value from a xorshift generator.
+	 */
+	private int nextNoise() {
+		noiseState ^= noiseState << 13;
+		noiseState ^= noiseState >>> 7;
+		noiseState ^= noiseState << 17;
+		return (int) noiseState & NOISE_MASK;
+	}
+
+	/**
+	 * Returns the number of cutoffs recorded.
+	 */
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	/**
+	 * Returns the percentage of cutoffs that happened on the first move tried.
+	 */
+	public double firstMoveCutoffRate() {
+		if (cutoffs == 0) {
+			return 0.0;
+		}
+		return 100.0 * firstMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * Summary of the cutoff counters.
+	 */
+	@Override
+	public String toString() {
+		return String.format("ordering: %d cutoffs, %.1f%% on the first move", cutoffs, firstMoveCutoffRate());
+	}
+}
@@ -0,0 +1,125 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Best moves of the opening positions, searched ahead of time and read from
+ * a binary file, see <code>BookBuilder</code>.
+ *
+ * A position of the book is stored once for all its symmetric forms, under
+ * the hash of its canonical form, see
+ * <code>OthelloPosition.getCanonicalHash</code>, with the move as it is in
+ * the canonical form. The entries are sorted by hash, so a position is found
+ * by binary search in a dozen or so reads.
+ *
+ * The reads go straight to the file with <code>RandomAccessFile</code>,
+ * nothing else of the file is read. Unlike <code>PatternWeights</code> the
+ * book is not mapped into memory: the book is looked up once per process,
+ * and in a new JVM the classes behind a mapping take some 50 ms to load,
+ * while the dozen reads of a lookup take a fraction of a millisecond. The
+ * operating system keeps the file in its page cache between moves anyway.
+ *
+ * File format, big endian:
+ *
+ *   int    MAGIC
+ *   int    VERSION
+ *   int    number of entries
+ *   and for every entry, in order of the hash as a signed number:
+ *   long   canonical hash of the position
+ *   short  best move in the canonical form, square 0-63
+ *   short  score of the move, seen from white
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class OpeningBook {
+
+	private static final int MAGIC = 0x4F54424B;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 3 * Integer.BYTES;
+	private static final int ENTRY_BYTES = Long.BYTES + 2 * Short.BYTES;
+
+	private OpeningBook() {
+	}
+
+	/**
+	 * Looks up the best move of a position.
+	 *
+	 * @param file, file written by <code>write</code>.
+	 * @param pos, position to look up.
+	 * @return the move with its score as value, or null if the position is not in the book.
+	 * @throws IOException if the file can not be read or is not a book.
+	 */
+	public static OthelloAction lookup(File file, OthelloPosition pos) throws IOException {
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			if (in.length() < HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(file + " is not an opening book");
+			}
+			int count = in.readInt();
+			if (count < 0 || in.length() != HEADER_BYTES + (long) count * ENTRY_BYTES) {
+				throw new IOException(file + " is truncated");
+			}
+
+			int symmetry = pos.getCanonicalSymmetry();
+			long hash = pos.getHash(symmetry);
+			int low = 0;
+			int high = count - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				in.seek(HEADER_BYTES + (long) middle * ENTRY_BYTES);
+				long entryHash = in.readLong();
+				if (entryHash < hash) {
+					low = middle + 1;
+				} else if (entryHash > hash) {
+					high = middle - 1;
+				} else {
+					int move = OthelloPosition.transformSquare(in.readShort(), OthelloPosition.inverse(symmetry));
+					// A move that is not legal means another position with the same hash.
+					if (move < 0 || (pos.getMoveMask() & (1L << move)) == 0) {
+						return null;
+					}
+					OthelloAction action = OthelloAction.fromSquare(move);
+					action.setValue(in.readShort());
+					return action;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Writes a book to a file. The entries may come in any order, and a
+	 * position must only be given once.
+	 *
+	 * @param file, file to write.
+	 * @param hashes, canonical hash of every position.
+	 * @param moves, best move of every position in its canonical form.
+	 * @param scores, score of every move, seen from white.
+	 * @throws IOException if the file can not be written.
+	 */
+	public static void write(File file, long[] hashes, int[] moves, int[] scores) throws IOException {
+		Integer[] order = new Integer[hashes.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingLong(i -> hashes[i]));
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(hashes.length);
+			for (int i : order) {
+				out.writeLong(hashes[i]);
+				out.writeShort(moves[i]);
+				out.writeShort(Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scores[i])));
+			}
+		}
+	}
+}
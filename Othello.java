@@ -1,22 +1,49 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
 
 /**
  * Main entry point for the Othello game search.
  *
  * Current behavior:
- *   - Uses Alpha-Beta pruning with a fixed search depth.
- *   - Prints the best move found at that depth.
+ *   - Uses Principal Variation Search with iterative deepening and
+ *     aspiration windows until the time limit.
+ *   - Evaluates the leaves by patterns of squares with learned weights,
+ *     read from othello.weights, or without that file by square weights,
+ *     mobility, frontier discs and stable edge discs.
+ *   - With more than one thread, helper threads run Lazy SMP searches that
+ *     share the transposition table with the main search, or, with split=1,
+ *     the threads split up the tree with Young Brothers Wait.
+ *   - Answers positions of the opening from a book, othello.book, without
+ *     searching, see <code>BookBuilder</code>.
+ *   - Near the end of the game, solves the position exactly when the
+ *     measured speed of the endgame solver says it fits in the time left.
+ *   - Prints the best move found at the deepest finished depth.
+ *   - A watchdog thread prints the latest best move and exits shortly
+ *     before the time limit if the search has not finished by then.
  *
  * Assignment requirement:
  *   - Replace fixed-depth search with Iterative Deepening Search (IDS)
  *     that respects a time limit (provided as an argument).
  *
  * Usage:
- *   java Othello <position_string> <time_limit_seconds>
+ *   java Othello <position_string> <time_limit_seconds> [name=value ...]
  *
  * Args:
  *   arg0: Position string (length 65, board representation).
  *   arg1: Time limit in seconds for IDS (float or int).
  *
+ * Options:
+ *   hash=MB     Size of the transposition table in megabytes.
+ *   threads=N   Number of search threads, 1 for a single-threaded search.
+ *   split=1     Split the tree between the threads instead of Lazy SMP.
+ *   margin=MS   How long before the time limit the watchdog prints the move.
+ *   book=0      Search positions of the opening book instead of looking them up.
+ *   verbose=1   Print search statistics to standard error.
+ *
  * @author Henrik Björklund, original
  * @author Fredrik Alexandre, co-author
  * @author Samuel Hagner, co-author
@@ -27,30 +54,143 @@ public class Othello {
 
 	private static final int LENGTH_OF_POSITION = 65;
 	private static final long ONE_SECOND_OF_NANOS = 1_000_000_000L;
+	private static final double ONE_MILLISECOND_OF_NANOS = 1_000_000.0;
+	private static final int FIRST_OPTION = 2;
+
+	/**
+	 * Half width of the first aspiration window around the previous iteration's score.
+	 */
+	private static final int ASPIRATION_WINDOW = 64;
+	private static final int FULL_WINDOW_LOW = -Integer.MAX_VALUE;
+	private static final int FULL_WINDOW_HIGH = Integer.MAX_VALUE;
+
+	/**
+	 * Time kept back from the limit for printing the move and exiting the JVM,
+	 * at most this much and at most a tenth of the limit.
+	 */
+	private static final long SAFETY_MARGIN_NANOS = 50_000_000L;
+
+	/**
+	 * Default time in milliseconds before the limit at which the watchdog prints the move.
+	 */
+	private static final int DEFAULT_WATCHDOG_MARGIN_MS = 20;
+	private static final long ONE_MILLISECOND_IN_NANOS = 1_000_000L;
+
+	/**
+	 * Smallest effective branching factor used to predict the next depth.
+	 */
+	private static final double MIN_BRANCHING_FACTOR = 1.0;
+
+	/**
+	 * Near the end, one part in this many of the time goes to a midgame search
+	 * for a move to fall back on, and as much to measuring the solver's speed.
+	 */
+	private static final int ENDGAME_TIME_SHARE = 10;
+
+	/**
+	 * Clock ticks per second of the start time in /proc/self/stat, 100 on Linux.
+	 */
+	private static final double CLOCK_TICKS_PER_SECOND = 100.0;
+	private static final int STARTTIME_FIELD = 19;
+
+	/**
+	 * Weights of the pattern evaluator, in the directory the program runs in.
+	 */
+	private static final String WEIGHTS_FILE = "othello.weights";
+
+	/**
+	 * Opening book, in the directory the program runs in.
+	 */
+	private static final String BOOK_FILE = "othello.book";
 
 	public static void main(String [] args) {
 
+		long mainNanos = System.nanoTime();
+
 		// Get and validate input.
 		String positionString = getAndValidatePosition(args);
 		double timeLimitSeconds = getAndValidateTime(args);
 
+		int hashSizeMb = getIntOption(args, "hash", TranspositionTable.DEFAULT_SIZE_MB);
+		boolean verbose = getIntOption(args, "verbose", 0) != 0;
+		int threads = Math.max(1, getIntOption(args, "threads", 1));
+		boolean split = getIntOption(args, "split", 0) != 0;
+		int watchdogMarginMs = getIntOption(args, "margin", DEFAULT_WATCHDOG_MARGIN_MS);
+		boolean useBook = getIntOption(args, "book", 1) != 0;
+
 		// Define and make position and algorithm.
 		OthelloPosition position = new OthelloPosition(positionString);
-		OthelloAlgorithm algorithm = new AlphaBeta(new Heuristics());
 
-		// The time when the time limit has ended.
-		long stopTimeNanos = stopTimeInNanos(timeLimitSeconds);
+		// A position of the opening book is answered without a search.
+		if (useBook) {
+			long bookNanos = System.nanoTime();
+			OthelloAction bookAction = lookUpBook(position, verbose);
+			if (bookAction != null) {
+				bookAction.print();
+				System.out.flush();
+				long printNanos = System.nanoTime();
+				if (verbose) {
+					System.err.printf("book: score %d, looked up in %.2f ms, printed %.1f ms after main%n",
+							bookAction.getValue(), (printNanos - bookNanos) / ONE_MILLISECOND_OF_NANOS,
+							(printNanos - mainNanos) / ONE_MILLISECOND_OF_NANOS);
+				}
+				return;
+			}
+		}
+
+		// The time limit counts from the start of the process, not from main.
+		long processStartNanos = System.nanoTime() - nanosSinceProcessStart();
+
+		Supplier<OthelloEvaluator> evaluators = getEvaluators(verbose);
+		AlphaBeta algorithm;
+		if (split) {
+			algorithm = new ParallelAlphaBeta(evaluators, threads);
+		} else {
+			algorithm = new PrincipalVariationSearch(evaluators.get());
+		}
+		TranspositionTable table = new TranspositionTable(hashSizeMb);
+		algorithm.setTranspositionTable(table);
+		int helperCount = split ? 0 : threads - 1;
+		LazySmp helpers = new LazySmp(helperCount, table, () -> new PrincipalVariationSearch(evaluators.get()));
+
+		// The time when the time limit has ended, and when the search has to stop.
+		long deadlineNanos = deadlineInNanos(processStartNanos, timeLimitSeconds);
+		long stopTimeNanos = stopTimeInNanos(deadlineNanos, timeLimitSeconds);
+
+		// The watchdog prints a move before the time limit even if the search hangs.
+		Watchdog watchdog = new Watchdog(deadlineNanos - watchdogMarginMs * ONE_MILLISECOND_IN_NANOS,
+				ifNoMoveWasGotten(position));
+		watchdog.start();
 
-		// Running the iterative deepening search until the time limit.
-		OthelloAction bestAction = iterativeDeepeningSearch(position, algorithm, stopTimeNanos);
+		if (verbose) {
+			System.err.printf("startup: %.1f ms before main, first search node after %.1f ms%n",
+					(mainNanos - processStartNanos) / ONE_MILLISECOND_OF_NANOS,
+					(System.nanoTime() - processStartNanos) / ONE_MILLISECOND_OF_NANOS);
+		}
+
+		// Running the iterative deepening search until the time limit, or solving the endgame.
+		OthelloAction bestAction;
+		if (position.getEmptyCount() <= EndgameSolver.MAX_EMPTIES) {
+			bestAction = endgameSearch(position, algorithm, stopTimeNanos, verbose, watchdog);
+		} else {
+			helpers.start(position, stopTimeNanos);
+			bestAction = iterativeDeepeningSearch(position, algorithm, stopTimeNanos, verbose, watchdog);
+			helpers.stop();
+		}
 
 		// If no depth was evaluated completely, time ran out.
 		if (bestAction == null) {
 			bestAction = ifNoMoveWasGotten(position);
 		}
 
-		// Print the position.
-		bestAction.print();
+		// Print the position, unless the watchdog already did.
+		watchdog.print(bestAction);
+
+		if (verbose) {
+			System.err.println("nodes: " + algorithm.getNodeCount() + ", helper nodes: " + helpers.getNodeCount());
+			System.err.println(algorithm.getTranspositionTable());
+			System.err.println(algorithm.getMoveOrdering());
+		}
 	}
 
 	/**
@@ -101,6 +241,28 @@ public class Othello {
 		return timeLimitSeconds;
 	}
 
+	/**
+	 * Reads an optional integer given as <code>name=value</code> after the time limit.
+	 *
+	 * @param args, command line arguments.
+	 * @param name, name of the option.
+	 * @param defaultValue, value used when the option is not given.
+	 * @return the value of the option.
+	 */
+	private static int getIntOption(String[] args, String name, int defaultValue) {
+		String prefix = name + "=";
+		for (int i = FIRST_OPTION; i < args.length; i++) {
+			if (args[i].startsWith(prefix)) {
+				try {
+					return Integer.parseInt(args[i].substring(prefix.length()));
+				} catch (NumberFormatException e) {
+					printErrorAndSetExit("Option " + name + " must be an integer!", 1);
+				}
+			}
+		}
+		return defaultValue;
+	}
+
 	/**
 	 * Prints a error message and also sets the exit code to 1 that exits the program.
 	 *
@@ -129,43 +291,181 @@ public class Othello {
 	}
 
 	/**
-	 * Computes real stop time in nanoseconds.
+	 * Looks the position up in the opening book.
+	 *
+	 * @param position, position to look up.
+	 * @param verbose, print why the book could not be read.
+	 * @return the book move, or null if there is no book or the position is not in it.
+	 */
+	private static OthelloAction lookUpBook(OthelloPosition position, boolean verbose) {
+		File file = new File(BOOK_FILE);
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			return OpeningBook.lookup(file, position);
+		} catch (IOException e) {
+			if (verbose) {
+				System.err.println("Not using " + BOOK_FILE + ": " + e.getMessage());
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Makes the evaluators of the search threads. The pattern evaluator is
+	 * used if its weights can be read, else <code>MobilityEvaluator</code>.
+	 *
+	 * @param verbose, print why the weights could not be read.
+	 * @return a new evaluator at every call, all sharing the weights.
+	 */
+	static Supplier<OthelloEvaluator> getEvaluators(boolean verbose) {
+		Path file = Paths.get(WEIGHTS_FILE);
+		if (Files.exists(file)) {
+			try {
+				PatternWeights weights = PatternWeights.map(file);
+				return () -> new PatternEvaluator(weights);
+			} catch (IOException e) {
+				if (verbose) {
+					System.err.println("Not using " + WEIGHTS_FILE + ": " + e.getMessage());
+				}
+			}
+		}
+		return MobilityEvaluator::new;
+	}
+
+	/**
+	 * Computes the time the time limit is reached at, in nanoseconds.
 	 *
+	 * @param processStartNanos, time the process started at.
 	 * @param timeLimitSeconds, time limit in seconds.
 	 * @return time where the time limit will be reached.
 	 */
-	private static long stopTimeInNanos(double timeLimitSeconds) {
-		long stopTimeInNanos = System.nanoTime() + (long) (timeLimitSeconds * ONE_SECOND_OF_NANOS);
+	private static long deadlineInNanos(long processStartNanos, double timeLimitSeconds) {
+		return processStartNanos + (long) (timeLimitSeconds * ONE_SECOND_OF_NANOS);
+	}
+
+	/**
+	 * Returns how long the process has been running, in nanoseconds.
+	 *
+	 * The start time of the process in /proc/self/stat and the time since boot
+	 * in /proc/uptime are both counted from boot, so their difference is the
+	 * time spent starting the JVM, to within a clock tick. ProcessHandle's
+	 * start instant is not used: on Linux it is built from the boot time in
+	 * whole seconds and can be almost a second wrong, and it takes tens of
+	 * milliseconds to load. Without /proc the time is counted from main.
+	 *
+	 * @return time since the process started, or 0 if it cannot be read.
+	 */
+	private static long nanosSinceProcessStart() {
+		try {
+			String stat = new String(Files.readAllBytes(Paths.get("/proc/self/stat")));
+			String uptime = new String(Files.readAllBytes(Paths.get("/proc/uptime")));
+
+			// The command name in parentheses may contain spaces, the fields after it do not.
+			String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+			double startSeconds = Long.parseLong(fields[STARTTIME_FIELD]) / CLOCK_TICKS_PER_SECOND;
+			double uptimeSeconds = Double.parseDouble(uptime.substring(0, uptime.indexOf(' ')));
+			return Math.max(0L, (long) ((uptimeSeconds - startSeconds) * ONE_SECOND_OF_NANOS));
+		} catch (IOException | RuntimeException e) {
+			return 0L;
+		}
+	}
+
+	/**
+	 * Computes real stop time in nanoseconds.
+	 *
+	 * The search has to stop a safety margin before the limit, so that the
+	 * move is printed and the JVM has exited when the limit is reached.
+	 *
+	 * @param deadlineNanos, time where the time limit will be reached.
+	 * @param timeLimitSeconds, time limit in seconds.
+	 * @return time where the search has to stop.
+	 */
+	private static long stopTimeInNanos(long deadlineNanos, double timeLimitSeconds) {
+		long limitNanos = (long) (timeLimitSeconds * ONE_SECOND_OF_NANOS);
+		long stopTimeInNanos = deadlineNanos - Math.min(SAFETY_MARGIN_NANOS, limitNanos / 10);
 		return stopTimeInNanos;
 	}
 
 	/**
 	 * Runs Iterative Deepening Search with alphaBeta the time limit is reached.
 	 *
+	 * Every depth after the first is searched with an aspiration window
+	 * centred on the score of the previous depth.
+	 *
+	 * The time of every depth is measured. The effective branching factor,
+	 * how many times longer a depth takes than the one before, predicts the
+	 * time of the next depth, and a depth that is not predicted to finish
+	 * before the time limit is not started.
+	 *
+	 * When the time limit stops a depth, the root moves it did finish are
+	 * still used: a move proven better than the previous best move, which is
+	 * always searched first, replaces it.
+	 *
 	 * @param position, position to evaluate.
 	 * @param algorithm, the algoritm for heuristics to use.
 	 * @param stopTimeNanos the time limit.
+	 * @param verbose, true to print predicted and actual time of every depth to standard error.
+	 * @param watchdog, is given the best action of every finished depth.
 	 * @return the best action from the deepest search that was finished.
 	 */
 	private static OthelloAction iterativeDeepeningSearch(OthelloPosition position, OthelloAlgorithm algorithm,
-														  long stopTimeNanos) {
+														  long stopTimeNanos, boolean verbose, Watchdog watchdog) {
 		OthelloAction bestAction = null;
 		int searchDepth = 1;
+		long lastIterationNanos = 0;
+		double branchingFactor = 0.0;
 
 		while (System.nanoTime() < stopTimeNanos) {
+			long startNanos = System.nanoTime();
+			long predictedNanos = (long) (lastIterationNanos * branchingFactor);
+			if (branchingFactor > 0.0 && startNanos + predictedNanos > stopTimeNanos) {
+				if (verbose) {
+					System.err.printf("depth %d: not started, predicted %.1f ms, %.1f ms left%n", searchDepth,
+							predictedNanos / ONE_MILLISECOND_OF_NANOS, (stopTimeNanos - startNanos) / ONE_MILLISECOND_OF_NANOS);
+				}
+				break;
+			}
+
 			algorithm.setSearchDepth(searchDepth);
 			algorithm.setStopTime(stopTimeNanos);
 
 			try {
-				OthelloAction possibleBestAction = algorithm.evaluate(position);
+				OthelloAction possibleBestAction;
+				if (bestAction == null) {
+					algorithm.setWindow(FULL_WINDOW_LOW, FULL_WINDOW_HIGH);
+					possibleBestAction = algorithm.evaluate(position);
+				} else {
+					possibleBestAction = aspirationSearch(position, algorithm, algorithm.getScore());
+				}
+
+				long iterationNanos = System.nanoTime() - startNanos;
+				if (verbose) {
+					System.err.printf("depth %d: predicted %.1f ms, actual %.1f ms%n", searchDepth,
+							predictedNanos / ONE_MILLISECOND_OF_NANOS, iterationNanos / ONE_MILLISECOND_OF_NANOS);
+				}
+				branchingFactor = nextBranchingFactor(branchingFactor, lastIterationNanos, iterationNanos);
+				lastIterationNanos = iterationNanos;
 
 				if (System.nanoTime() < stopTimeNanos) {
 					bestAction = possibleBestAction;
+					watchdog.setBestAction(bestAction);
 					searchDepth++;
 				} else {
 					break;
 				}
 			} catch (TimeIsUpExeption e) {
+				// Root moves that were searched completely at this depth can still be used.
+				OthelloAction partialAction = algorithm.getPartialResult(bestAction);
+				if (verbose) {
+					System.err.printf("depth %d: predicted %.1f ms, stopped by the time limit, partial result %s%n",
+							searchDepth, predictedNanos / ONE_MILLISECOND_OF_NANOS, partialAction);
+				}
+				if (partialAction != null) {
+					bestAction = partialAction;
+					watchdog.setBestAction(bestAction);
+				}
 				break;
 			} catch (IllegalMoveException e) {
 				System.err.println("Skipping illegal move at depth " + searchDepth);
@@ -177,4 +477,136 @@ public class Othello {
 
 		return bestAction;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Updates the effective branching factor with the time of a finished depth.
+	 *
+	 * Alpha-beta trees grow unevenly from odd to even depths, so the factor
+	 * is the mean of the latest two ratios rather than only the latest one.
+	 *
+	 * @param branchingFactor, current estimate, 0 if there is none yet.
+	 * @param previousNanos, time of the depth before, 0 if there was none.
+	 * @param iterationNanos, time of the depth just finished.
+	 * @return the new estimate, 0 while there is too little to go on.
+	 */
+	private static double nextBranchingFactor(double branchingFactor, long previousNanos, long iterationNanos) {
+		if (previousNanos <= 0) {
+			return branchingFactor;
+		}
+		double ratio = Math.max(MIN_BRANCHING_FACTOR, (double) iterationNanos / previousNanos);
+		if (branchingFactor == 0.0) {
+			return ratio;
+		}
+		return (branchingFactor + ratio) / 2;
+	}
+
+	/**
+	 * Searches a position near the end of the game.
+	 *
+	 * A short midgame search first finds a move to fall back on. The solver is
+	 * then started with a short deadline. If it does not finish, its speed so far
+	 * decides if a full solve fits in the time left. If it does, the solve goes
+	 * on with the same table, otherwise the midgame search uses the rest of the time.
+	 *
+	 * @param position, position to evaluate.
+	 * @param algorithm, the midgame algorithm.
+	 * @param stopTimeNanos, the time limit.
+	 * @param verbose, true to print what was decided to standard error.
+	 * @param watchdog, is given every best action found.
+	 * @return the best action found, or null if no search finished.
+	 */
+	private static OthelloAction endgameSearch(OthelloPosition position, OthelloAlgorithm algorithm,
+											   long stopTimeNanos, boolean verbose, Watchdog watchdog) {
+		long startNanos = System.nanoTime();
+		long share = (stopTimeNanos - startNanos) / ENDGAME_TIME_SHARE;
+		OthelloAction fallback = iterativeDeepeningSearch(position, algorithm, startNanos + share, verbose, watchdog);
+
+		EndgameSolver solver = new EndgameSolver();
+		int empties = position.getEmptyCount();
+		long probeStartNanos = System.nanoTime();
+		solver.setStopTime(probeStartNanos + share);
+		try {
+			OthelloAction solved = solver.evaluate(position);
+			if (verbose) {
+				System.err.println("endgame: solved " + empties + " empties, score " + solver.getScore());
+			}
+			watchdog.setBestAction(solved);
+			return solved;
+		} catch (TimeIsUpExeption e) {
+			// Not solved yet, the nodes searched so far tell how fast the solver is.
+		}
+
+		long nowNanos = System.nanoTime();
+		double nodesPerSecond = (double) solver.getNodeCount() * ONE_SECOND_OF_NANOS
+				/ Math.max(1L, nowNanos - probeStartNanos);
+		double secondsLeft = (double) (stopTimeNanos - nowNanos) / ONE_SECOND_OF_NANOS;
+		int solvableEmpties = EndgameSolver.solvableEmpties(nodesPerSecond, secondsLeft);
+		if (verbose) {
+			System.err.printf("endgame: %d empties, %.0f nodes/s, up to %d empties solvable%n",
+					empties, nodesPerSecond, solvableEmpties);
+		}
+
+		if (empties <= solvableEmpties) {
+			solver.setStopTime(stopTimeNanos);
+			try {
+				OthelloAction solved = solver.evaluate(position);
+				if (verbose) {
+					System.err.println("endgame: solved " + empties + " empties, score " + solver.getScore());
+				}
+				watchdog.setBestAction(solved);
+				return solved;
+			} catch (TimeIsUpExeption e) {
+				OthelloAction partialAction = solver.getPartialResult(fallback);
+				return partialAction != null ? partialAction : fallback;
+			}
+		}
+
+		OthelloAction deeper = iterativeDeepeningSearch(position, algorithm, stopTimeNanos, verbose, watchdog);
+		return deeper != null ? deeper : fallback;
+	}
+
+	/**
+	 * Searches the current depth with a narrow window around the expected score.
+	 *
+	 * When the score falls outside the window it is only a bound, so the
+	 * window is widened on that side and the depth is searched again until
+	 * the score lands inside.
+	 *
+	 * @param position, position to evaluate.
+	 * @param algorithm, the algorithm to search with.
+	 * @param expectedScore, score of the previous depth, seen from white.
+	 * @return the best action at the current depth.
+	 * @throws IllegalMoveException if the algorithm makes an illegal move.
+	 */
+	private static OthelloAction aspirationSearch(OthelloPosition position, OthelloAlgorithm algorithm,
+												  int expectedScore) throws IllegalMoveException {
+		long delta = ASPIRATION_WINDOW;
+		int alpha = clampToWindow(expectedScore - delta);
+		int beta = clampToWindow(expectedScore + delta);
+
+		while (true) {
+			algorithm.setWindow(alpha, beta);
+			OthelloAction action = algorithm.evaluate(position);
+			int score = algorithm.getScore();
+
+			delta *= 4;
+			if (score <= alpha && alpha > FULL_WINDOW_LOW) {
+				alpha = clampToWindow(score - delta);
+			} else if (score >= beta && beta < FULL_WINDOW_HIGH) {
+				beta = clampToWindow(score + delta);
+			} else {
+				return action;
+			}
+		}
+	}
+
+	/**
+	 * Keeps a window bound inside the full window.
+	 *
+	 * @param bound, wanted bound.
+	 * @return the bound, or the edge of the full window if it is outside it.
+	 */
+	private static int clampToWindow(long bound) {
+		return (int) Math.max(FULL_WINDOW_LOW, Math.min(FULL_WINDOW_HIGH, bound));
+	}
+}
@@ -79,6 +79,28 @@ public class OthelloAction {
         }
     }
 
+    /**
+     * Creates a move from a square index 0-63 as used by the bitboards in
+     * <code>OthelloPosition</code>.
+     *
+     * @param square, square index.
+     * @return move to that square.
+     */
+    public static OthelloAction fromSquare(int square) {
+        return new OthelloAction(square / OthelloPosition.BOARD_SIZE + 1, square % OthelloPosition.BOARD_SIZE + 1);
+    }
+
+    /**
+     * Returns the square index 0-63 of the move, or <code>OthelloPosition.PASS</code>
+     * for a pass move.
+     */
+    public int getSquare() {
+        if (pass) {
+            return OthelloPosition.PASS;
+        }
+        return OthelloPosition.square(row, column);
+    }
+
     /**
      * Sets the estimated value of the move.
      *
@@ -145,15 +167,40 @@ public class OthelloAction {
         return pass;
     }
 
+    /**
+     * Returns the move mapped by one of the symmetries of the board, the
+     * same move in the mapped position. A pass stays a pass.
+     *
+     * @param symmetry, 0 to 7, as for <code>OthelloPosition.transform</code>.
+     * @return the mapped move, with the same value.
+     */
+    public OthelloAction transform(int symmetry) {
+        if (pass) {
+            return new OthelloAction(row, column, true);
+        }
+        OthelloAction action = fromSquare(OthelloPosition.transformSquare(getSquare(), symmetry));
+        action.setValue(value);
+        return action;
+    }
+
     /**
      * Prints this action to standard output.
      */
     public void print() {
+        System.out.println(this);
+    }
+
+    /**
+     * Returns the action as it is printed, "pass" or "(row,column)".
+     */
+    @Override
+    public String toString() {
         if (pass) {
-            System.out.println("pass");
-        } else {
-            System.out.println("(" + row + "," + column + ")");
+            return "pass";
         }
+        // Built by hand: the first string concatenation of a JVM takes tens of
+        // milliseconds to set up, and this is often the only one of a move.
+        return new StringBuilder().append('(').append(row).append(',').append(column).append(')').toString();
     }
 
 }
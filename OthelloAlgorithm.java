@@ -46,4 +46,34 @@ public interface OthelloAlgorithm {
 	 * @param stopTIme, complete stoptime in nanoseconds.
 	 */
 	void setStopTime(long stopTIme);
-}
\ No newline at end of file
+
+	/**
+	 * Sets the window the root is searched with by the following calls to
+	 * <code>evaluate</code>. Scores are seen from white, like the evaluator's.
+	 * A score outside the window is only a bound on the real value.
+	 *
+	 * @param alpha, lower bound of the window.
+	 * @param beta, upper bound of the window.
+	 */
+	public void setWindow(int alpha, int beta);
+
+	/**
+	 * Returns the score of the move returned by the latest completed call to
+	 * <code>evaluate</code>, seen from white.
+	 *
+	 * @return score of the best move.
+	 */
+	public int getScore();
+
+	/**
+	 * Returns the best move of the latest call to <code>evaluate</code> among
+	 * the root moves it searched completely, for when that call was stopped
+	 * by the time limit. The move is only given if the first root move
+	 * searched was the given previous best move, and it is a different move
+	 * only if it was proven better than that move at the new depth.
+	 *
+	 * @param previousBest, best move of the previous, shallower search.
+	 * @return the best move so far, or null if there is none.
+	 */
+	public OthelloAction getPartialResult(OthelloAction previousBest);
+}
@@ -10,7 +10,7 @@
  * @author Fredrik Alexandre, co-author
  * @author Samuel Hagner, co-author
  *
- * @version 2.0, 2025-09-24
+ * @version 2.1, 2026-10-18
  */
 
 public interface OthelloEvaluator {
@@ -23,4 +23,23 @@ public interface OthelloEvaluator {
 	 */
 	public int evaluate(OthelloPosition position);
 
+	/**
+	 * Returns an evaluation of the position that only has to be exact inside
+	 * the window from <code>alpha</code> to <code>beta</code>, seen from white.
+	 *
+	 * An evaluator can compute its cheap terms first and return early when
+	 * the terms it has not computed cannot bring the score back into the
+	 * window. A score at or below alpha then only says that the real score is
+	 * at most that, and a score at or above beta that it is at least that,
+	 * which is all the search needs. By default the full score is computed.
+	 *
+	 * @param position, position to evaluate.
+	 * @param alpha, lower bound of the window.
+	 * @param beta, upper bound of the window.
+	 * @return score where higher is better for White and lower is better for Black.
+	 */
+	public default int evaluate(OthelloPosition position, int alpha, int beta) {
+		return evaluate(position);
+	}
+
 }
\ No newline at end of file
@@ -1,14 +1,15 @@
 import java.util.*;
 
 /**
- * This class is used to represent game positions. It uses a 2-dimensional char
- * array for the board and a Boolean to keep track of which player has the move.
+ * This class is used to represent game positions. It uses two bitboards, one
+ * <code>long</code> for each colour, and a Boolean to keep track of which
+ * player has the move.
  *
  * @author Henrik Björklund, original
  * @author Fredrik Alexandre, co-author
  * @author Samuel Hagner, co-author
  *
- * @version 2.0, 2025-09-24
+ * @version 3.0, 2026-10-18
  */
 
 public class OthelloPosition {
@@ -18,32 +19,141 @@ public class OthelloPosition {
      */
     protected static final int BOARD_SIZE = 8;
 
+    /**
+     * All squares except the first and last column. Opponent discs are masked
+     * with this for every direction that moves sideways, so that shifts never
+     * wrap around to the next row.
+     */
+    private static final long INNER_COLUMNS = 0x7E7E7E7E7E7E7E7EL;
+
+    /**
+     * Square recorded on the undo stack for a pass.
+     */
+    public static final int PASS = -1;
+
+    /**
+     * Depth of the undo stack. A game has at most 60 moves, the rest leaves
+     * room for passes.
+     */
+    private static final int MAX_PLIES = 128;
+
+    /**
+     * Size of a move buffer that is large enough for any position.
+     */
+    public static final int MAX_MOVES = 64;
+
+    /**
+     * Zobrist keys for a white disc on each square.
+     */
+    private static final long[] WHITE_KEYS = new long[64];
+
+    /**
+     * Zobrist keys for a black disc on each square.
+     */
+    private static final long[] BLACK_KEYS = new long[64];
+
+    /**
+     * Zobrist keys for flipping the disc on each square, the white key xor the
+     * black key.
+     */
+    private static final long[] FLIP_KEYS = new long[64];
+
+    /**
+     * Zobrist key that is included when white has the move.
+     */
+    private static final long WHITE_TO_MOVE_KEY;
+
+    /**
+     * Number of symmetries of the board, counting the identity, and for each
+     * the symmetry that takes it back.
+     */
+    public static final int SYMMETRIES = 8;
+    private static final int[] INVERSE_SYMMETRIES = new int[SYMMETRIES];
+
+    static {
+        // Fixed seed so that keys, and anything stored under them, are the same in every run.
+        Random random = new Random(0x0DE110L);
+        for (int i = 0; i < 64; i++) {
+            WHITE_KEYS[i] = random.nextLong();
+            BLACK_KEYS[i] = random.nextLong();
+            FLIP_KEYS[i] = WHITE_KEYS[i] ^ BLACK_KEYS[i];
+        }
+        WHITE_TO_MOVE_KEY = random.nextLong();
+
+        // A corner and a square next to it are only both in place for the identity.
+        long probe = 1L | 2L;
+        for (int symmetry = 0; symmetry < SYMMETRIES; symmetry++) {
+            for (int back = 0; back < SYMMETRIES; back++) {
+                if (transform(transform(probe, symmetry), back) == probe) {
+                    INVERSE_SYMMETRIES[symmetry] = back;
+                }
+            }
+        }
+    }
+
     /**
      * True if the first player (white) has the move.
      */
     protected boolean maxPlayer;
 
     /**
-     * The representation of the board. For convenience, the array actually has two
-     * columns and two rows more that the actual game board. The 'middle' is used
-     * for the board. The first index is for rows, and the second for columns. This
-     * means that for a standard 8x8 game board, <code>board[1][1]</code> represents
-     * the upper left corner, <code>board[1][8]</code> the upper right corner,
-     * <code>board[8][1]</code> the lower left corner, and <code>board[8][8]</code>
-     * the lower left corner. In the array, the charachters 'E', 'W', and 'B' are
-     * used to represent empty, white, and black board squares, respectively.
+     * The representation of the board. Bit <code>(row - 1) * 8 + (column - 1)</code>
+     * is set when that square holds a white disc, so bit 0 represents the upper
+     * left corner (1,1), bit 7 the upper right corner (1,8), bit 56 the lower
+     * left corner (8,1) and bit 63 the lower right corner (8,8).
+     */
+    protected long white;
+
+    /**
+     * The black discs, using the same square numbering as <code>white</code>.
      */
-    protected char[][] board;
+    protected long black;
+
+    /**
+     * Zobrist hash of the discs and the side to move. It is updated for the
+     * placed and flipped discs only whenever a move is made or taken back.
+     */
+    protected long hash;
+
+    /**
+     * Value of a disc on each square for the running score kept for an
+     * <code>IncrementalEvaluator</code>, or null if no score is kept.
+     */
+    private int[] squareValues;
+
+    /**
+     * Sum of <code>squareValues</code> over the white discs minus the sum over
+     * the black discs. It is updated for the placed and flipped discs only.
+     */
+    private int squareScore;
+
+    /**
+     * Squares played by <code>doMove</code>, one entry per ply. Allocated on the
+     * first in-place move so that copies made by <code>makeMove</code> stay small.
+     */
+    private int[] undoSquares;
+
+    /**
+     * Discs flipped by <code>doMove</code>, one entry per ply.
+     */
+    private long[] undoFlips;
+
+    /**
+     * Change of the running score made by <code>doMove</code>, one entry per ply.
+     */
+    private int[] undoScores;
+
+    /**
+     * Number of moves on the undo stack.
+     */
+    private int ply;
 
     /**
      * Creates a new position and sets all squares to empty.
      */
     public OthelloPosition() {
-        board = new char[BOARD_SIZE + 2][BOARD_SIZE + 2];
-        for (int i = 0; i < BOARD_SIZE + 2; i++)
-            for (int j = 0; j < BOARD_SIZE + 2; j++)
-                board[i][j] = 'E';
-
+        white = 0L;
+        black = 0L;
     }
 
     /**
@@ -52,245 +162,345 @@ public class OthelloPosition {
      * @param s, position string.
      */
     public OthelloPosition(String s) {
-        if (s.length() != 65) {
-            board = new char[BOARD_SIZE + 2][BOARD_SIZE + 2];
-            for (int i = 0; i < BOARD_SIZE + 2; i++)
-                for (int j = 0; j < BOARD_SIZE + 2; j++)
-                    board[i][j] = 'E';
-        } else {
-            board = new char[BOARD_SIZE + 2][BOARD_SIZE + 2];
+        if (s.length() == 65) {
             if (s.charAt(0) == 'W') {
                 maxPlayer = true;
             } else {
                 maxPlayer = false;
             }
             for (int i = 1; i <= 64; i++) {
-                char c;
-                if (s.charAt(i) == 'E') {
-                    c = 'E';
-                } else if (s.charAt(i) == 'O') {
-                    c = 'W';
-                } else {
-                    c = 'B';
+                if (s.charAt(i) == 'O') {
+                    white |= 1L << (i - 1);
+                } else if (s.charAt(i) != 'E') {
+                    black |= 1L << (i - 1);
                 }
-                int column = ((i - 1) % 8) + 1;
-                int row = (i - 1) / 8 + 1;
-                board[row][column] = c;
             }
         }
-
+        hash = computeHash();
     }
 
     /**
      * Initializes the position by placing four markers in the middle of the board.
      */
     public void initialize() {
-        board[BOARD_SIZE / 2][BOARD_SIZE / 2] = board[BOARD_SIZE / 2 + 1][BOARD_SIZE / 2 + 1] = 'W';
-        board[BOARD_SIZE / 2][BOARD_SIZE / 2 + 1] = board[BOARD_SIZE / 2 + 1][BOARD_SIZE / 2] = 'B';
+        white = bit(BOARD_SIZE / 2, BOARD_SIZE / 2) | bit(BOARD_SIZE / 2 + 1, BOARD_SIZE / 2 + 1);
+        black = bit(BOARD_SIZE / 2, BOARD_SIZE / 2 + 1) | bit(BOARD_SIZE / 2 + 1, BOARD_SIZE / 2);
         maxPlayer = true;
+        hash = computeHash();
     }
 
-    /* getMoves and helper functions */
+    /* square numbering */
 
     /**
-     * Returns a linked list of <code>OthelloAction</code> representing all possible
-     * moves in the position. If the list is empty, there are no legal moves for the
-     * player who has the move.
+     * Returns the bit index of a square on the board.
      *
-     * @return list of OthelloAction, empty if no legal move exists.
+     * @param row, row 1-8.
+     * @param column, column 1-8.
+     * @return square index 0-63.
      */
-    public LinkedList<OthelloAction> getMoves() {
-        boolean[][] candidates = new boolean[BOARD_SIZE][BOARD_SIZE];
-        LinkedList<OthelloAction> moves = new LinkedList<OthelloAction>();
-        for (int i = 0; i < BOARD_SIZE; i++)
-            for (int j = 0; j < BOARD_SIZE; j++)
-                candidates[i][j] = isCandidate(i + 1, j + 1);
-        for (int i = 0; i < BOARD_SIZE; i++)
-            for (int j = 0; j < BOARD_SIZE; j++)
-                if (candidates[i][j])
-                    if (isMove(i + 1, j + 1))
-                        moves.add(new OthelloAction(i + 1, j + 1));
-        return moves;
+    public static int square(int row, int column) {
+        return (row - 1) * BOARD_SIZE + (column - 1);
     }
 
     /**
-     * Check if it is possible to do a move from this position.
+     * Returns the single bit mask of a square, or 0 if the square is outside
+     * of the board.
      *
-     * @param row, row
+     * @param row, row.
      * @param column, column.
-     * @return true if the move is legal, else false.
+     * @return bit mask.
      */
-    private boolean isMove(int row, int column) {
-        if (checkNorth(row, column))
-            return true;
-        if (checkNorthEast(row, column))
-            return true;
-        if (checkEast(row, column))
-            return true;
-        if (checkSouthEast(row, column))
-            return true;
-        if (checkSouth(row, column))
-            return true;
-        if (checkSouthWest(row, column))
-            return true;
-        if (checkWest(row, column))
-            return true;
-        if (checkNorthWest(row, column))
-            return true;
+    private static long bit(int row, int column) {
+        if (row < 1 || row > BOARD_SIZE || column < 1 || column > BOARD_SIZE) {
+            return 0L;
+        }
+        return 1L << square(row, column);
+    }
 
-        return false;
+    /* symmetries of a bitboard */
+
+    /**
+     * Mirrors a bitboard top to bottom, row r becomes row 9 - r.
+     *
+     * @param board, bitboard to mirror.
+     * @return mirrored bitboard.
+     */
+    public static long flipVertical(long board) {
+        return Long.reverseBytes(board);
     }
 
     /**
-     * Check if it is possible to do a move to the north from this position.
+     * Mirrors a bitboard left to right, column c becomes column 9 - c.
      *
-     * @param row, row.
-     * @param column, column.
-     * @return true or false.
+     * @param board, bitboard to mirror.
+     * @return mirrored bitboard.
      */
-    private boolean checkNorth(int row, int column) {
-        if (!isOpponentSquare(row - 1, column))
-            return false;
-        for (int i = row - 2; i > 0; i--) {
-            if (isFree(i, column))
-                return false;
-            if (isOwnSquare(i, column))
-                return true;
-        }
-        return false;
+    public static long flipHorizontal(long board) {
+        board = ((board >>> 1) & 0x5555555555555555L) | ((board & 0x5555555555555555L) << 1);
+        board = ((board >>> 2) & 0x3333333333333333L) | ((board & 0x3333333333333333L) << 2);
+        return ((board >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((board & 0x0F0F0F0F0F0F0F0FL) << 4);
     }
 
     /**
-     * Check if it is possible to do a move to the east from this position.
+     * Mirrors a bitboard in the diagonal from (1,1) to (8,8), square (r,c)
+     * becomes square (c,r).
      *
-     * @param row, row.
-     * @param column, column.
-     * @return true or false.
+     * @param board, bitboard to mirror.
+     * @return mirrored bitboard.
      */
-    private boolean checkEast(int row, int column) {
-        if (!isOpponentSquare(row, column + 1))
-            return false;
-        for (int i = column + 2; i <= BOARD_SIZE; i++) {
-            if (isFree(row, i))
-                return false;
-            if (isOwnSquare(row, i))
-                return true;
+    public static long flipDiagonal(long board) {
+        long swap = 0x0F0F0F0F00000000L & (board ^ (board << 28));
+        board ^= swap ^ (swap >>> 28);
+        swap = 0x3333000033330000L & (board ^ (board << 14));
+        board ^= swap ^ (swap >>> 14);
+        swap = 0x5500550055005500L & (board ^ (board << 7));
+        return board ^ swap ^ (swap >>> 7);
+    }
+
+    /**
+     * Maps a bitboard by one of the eight symmetries of the board.
+     *
+     * @param board, bitboard to map.
+     * @param symmetry, 0 to 7. Bit 0 mirrors top to bottom, bit 1 left to
+     *        right and bit 2 in the diagonal, in that order.
+     * @return mapped bitboard.
+     */
+    public static long transform(long board, int symmetry) {
+        if ((symmetry & 1) != 0) {
+            board = flipVertical(board);
+        }
+        if ((symmetry & 2) != 0) {
+            board = flipHorizontal(board);
         }
-        return false;
+        if ((symmetry & 4) != 0) {
+            board = flipDiagonal(board);
+        }
+        return board;
     }
 
     /**
-     * Check if it is possible to do a move to the south from this position.
+     * Returns the symmetry that takes a symmetry back.
      *
-     * @param row, row.
-     * @param column, column.
-     * @return true or false.
+     * @param symmetry, 0 to 7, as for <code>transform</code>.
+     * @return the inverse symmetry.
      */
-    private boolean checkSouth(int row, int column) {
-        if (!isOpponentSquare(row + 1, column))
-            return false;
-        for (int i = row + 2; i <= BOARD_SIZE; i++) {
-            if (isFree(i, column))
-                return false;
-            if (isOwnSquare(i, column))
-                return true;
-        }
-        return false;
+    public static int inverse(int symmetry) {
+        return INVERSE_SYMMETRIES[symmetry];
     }
 
     /**
-     * Check if it is possible to do a move to the west from this position.
+     * Maps a square by one of the eight symmetries of the board.
      *
-     * @param row, row.
-     * @param column, column.
-     * @return true or false.
+     * @param square, square 0-63, or PASS, which is left as it is.
+     * @param symmetry, 0 to 7, as for <code>transform</code>.
+     * @return mapped square.
      */
-    private boolean checkWest(int row, int column) {
-        if (!isOpponentSquare(row, column - 1))
-            return false;
-        for (int i = column - 2; i > 0; i--) {
-            if (isFree(row, i))
-                return false;
-            if (isOwnSquare(row, i))
-                return true;
+    public static int transformSquare(int square, int symmetry) {
+        if (square == PASS || symmetry == 0) {
+            return square;
         }
-        return false;
+        return Long.numberOfTrailingZeros(transform(1L << square, symmetry));
     }
 
     /**
-     * Check if it is possible to do a move to the northest from this position.
+     * Returns the symmetry that takes the position to its canonical form,
+     * the form whose white and then black bitboard is smallest as unsigned
+     * numbers. The eight symmetric forms of a position have the same
+     * canonical form, so it can stand for all of them.
      *
-     * @param row, row.
-     * @param column, column.
-     * @return true or false.
+     * @return symmetry 0 to 7, as for <code>transform</code>.
      */
-    private boolean checkNorthEast(int row, int column) {
-        if (!isOpponentSquare(row - 1, column + 1))
-            return false;
-        for (int i = 2; row - i > 0 && column + i <= BOARD_SIZE; i++) {
-            if (isFree(row - i, column + i))
-                return false;
-            if (isOwnSquare(row - i, column + i))
-                return true;
+    public int getCanonicalSymmetry() {
+        return canonicalSymmetry(white, black);
+    }
+
+    /**
+     * Returns the symmetry that takes the given discs to their canonical
+     * form, see <code>getCanonicalSymmetry</code>.
+     *
+     * @param white, white discs.
+     * @param black, black discs.
+     * @return symmetry 0 to 7, as for <code>transform</code>.
+     */
+    public static int canonicalSymmetry(long white, long black) {
+        // The eight forms of white, each made from an earlier one with a single mirroring.
+        long vertical = flipVertical(white);
+        long horizontal = flipHorizontal(white);
+        long both = flipHorizontal(vertical);
+        long[] forms = {white, vertical, horizontal, both,
+                flipDiagonal(white), flipDiagonal(vertical), flipDiagonal(horizontal), flipDiagonal(both)};
+
+        int best = 0;
+        long bestBlack = black;
+        for (int symmetry = 1; symmetry < SYMMETRIES; symmetry++) {
+            int order = Long.compareUnsigned(forms[symmetry], forms[best]);
+            if (order > 0) {
+                continue;
+            }
+            long b = transform(black, symmetry);
+            if (order < 0 || Long.compareUnsigned(b, bestBlack) < 0) {
+                best = symmetry;
+                bestBlack = b;
+            }
         }
-        return false;
+        return best;
     }
 
     /**
-     * Check if it is possible to do a move to the southeast from this position.
+     * Returns the Zobrist hash of the canonical form of the position, which
+     * is the same for all its symmetric forms.
      *
-     * @param row, row.
-     * @param column, column.
-     * @return true or false.
+     * @return canonical position hash.
      */
-    private boolean checkSouthEast(int row, int column) {
-        if (!isOpponentSquare(row + 1, column + 1))
-            return false;
-        for (int i = 2; row + i <= BOARD_SIZE && column + i <= BOARD_SIZE; i++) {
-            if (isFree(row + i, column + i))
-                return false;
-            if (isOwnSquare(row + i, column + i))
-                return true;
+    public long getCanonicalHash() {
+        return getHash(getCanonicalSymmetry());
+    }
+
+    /* getMoves and helper functions */
+
+    /**
+     * Returns a linked list of <code>OthelloAction</code> representing all possible
+     * moves in the position. If the list is empty, there are no legal moves for the
+     * player who has the move.
+     *
+     * @return list of OthelloAction, empty if no legal move exists.
+     */
+    public LinkedList<OthelloAction> getMoves() {
+        LinkedList<OthelloAction> moves = new LinkedList<OthelloAction>();
+        long mask = getMoveMask();
+        while (mask != 0) {
+            int square = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            moves.add(OthelloAction.fromSquare(square));
         }
-        return false;
+        return moves;
     }
 
     /**
-     * Check if it is possible to do a move to the soutwest from this position.
+     * Writes the square indices of all legal moves into <code>buffer</code>, in
+     * the same order as <code>getMoves()</code>, without allocating anything.
      *
-     * @param row, row.
-     * @param column, column.
-     * @return true or false.
+     * @param buffer, array of at least <code>MAX_MOVES</code> entries.
+     * @return number of legal moves written, 0 if no legal move exists.
+     */
+    public int getMoves(int[] buffer) {
+        long mask = getMoveMask();
+        int count = 0;
+        while (mask != 0) {
+            buffer[count++] = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Returns all legal moves for the player who has the move as one bit mask.
+     *
+     * @return legal moves, 0 if no legal move exists.
      */
-    private boolean checkSouthWest(int row, int column) {
-        if (!isOpponentSquare(row + 1, column - 1))
-            return false;
-        for (int i = 2; row + i <= BOARD_SIZE && column - i > 0; i++) {
-            if (isFree(row + i, column - i))
-                return false;
-            if (isOwnSquare(row + i, column - i))
-                return true;
+    public long getMoveMask() {
+        if (maxPlayer) {
+            return legalMoves(white, black);
         }
-        return false;
+        return legalMoves(black, white);
     }
 
     /**
-     * Check if it is possible to do a move to the northwest from this position.
+     * Computes the legal moves for <code>own</code> by propagating own discs
+     * over opponent discs in all eight directions at once.
      *
-     * @param row, row.
-     * @param column, column.
-     * @return true or false.
+     * @param own, discs of the player to move.
+     * @param opp, discs of the opponent.
+     * @return bit mask of the empty squares that flip at least one disc.
      */
-    private boolean checkNorthWest(int row, int column) {
-        if (!isOpponentSquare(row - 1, column - 1))
-            return false;
-        for (int i = 2; row - i > 0 && column - i > 0; i++) {
-            if (isFree(row - i, column - i))
-                return false;
-            if (isOwnSquare(row - i, column - i))
-                return true;
+    public static long legalMoves(long own, long opp) {
+        long empty = ~(own | opp);
+        long inner = opp & INNER_COLUMNS;
+        return movesInDirection(own, opp, empty, 8)
+                | movesInDirection(own, inner, empty, 1)
+                | movesInDirection(own, inner, empty, 7)
+                | movesInDirection(own, inner, empty, 9);
+    }
+
+    /**
+     * Moves for one direction and its opposite. The runs of opponent discs can
+     * be at most six long, so five propagation steps are enough.
+     *
+     * @param own, discs of the player to move.
+     * @param opp, opponent discs, masked so the shift never wraps.
+     * @param empty, empty squares.
+     * @param shift, 1 for east/west, 8 for north/south, 7 and 9 for diagonals.
+     * @return moves found in the two directions.
+     */
+    private static long movesInDirection(long own, long opp, long empty, int shift) {
+        long x = (own << shift) & opp;
+        x |= (x << shift) & opp;
+        x |= (x << shift) & opp;
+        x |= (x << shift) & opp;
+        x |= (x << shift) & opp;
+        x |= (x << shift) & opp;
+        long moves = (x << shift) & empty;
+
+        x = (own >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        return moves | ((x >>> shift) & empty);
+    }
+
+    /**
+     * Computes the discs that are flipped when <code>own</code> plays on
+     * <code>square</code>.
+     *
+     * @param own, discs of the player to move.
+     * @param opp, discs of the opponent.
+     * @param square, square index 0-63 of the placed disc.
+     * @return bit mask of flipped discs, 0 if the move is not legal.
+     */
+    public static long flips(long own, long opp, int square) {
+        long move = 1L << square;
+        long inner = opp & INNER_COLUMNS;
+        return flipsInDirection(own, opp, move, 8)
+                | flipsInDirection(own, inner, move, 1)
+                | flipsInDirection(own, inner, move, 7)
+                | flipsInDirection(own, inner, move, 9);
+    }
+
+    /**
+     * Flips for one direction and its opposite. A run of opponent discs is only
+     * flipped when the square after it holds an own disc.
+     *
+     * @param own, discs of the player to move.
+     * @param opp, opponent discs, masked so the shift never wraps.
+     * @param move, bit of the placed disc.
+     * @param shift, 1 for east/west, 8 for north/south, 7 and 9 for diagonals.
+     * @return flipped discs in the two directions.
+     */
+    private static long flipsInDirection(long own, long opp, long move, int shift) {
+        long flipped = 0L;
+
+        long x = (move << shift) & opp;
+        x |= (x << shift) & opp;
+        x |= (x << shift) & opp;
+        x |= (x << shift) & opp;
+        x |= (x << shift) & opp;
+        x |= (x << shift) & opp;
+        if (((x << shift) & own) != 0) {
+            flipped |= x;
         }
-        return false;
+
+        x = (move >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        x |= (x >>> shift) & opp;
+        if (((x >>> shift) & own) != 0) {
+            flipped |= x;
+        }
+        return flipped;
     }
 
     /**
@@ -301,11 +511,10 @@ public class OthelloPosition {
      * @return true or false.
      */
     public boolean isOpponentSquare(int row, int column) {
-        if (maxPlayer && (board[row][column] == 'B'))
-            return true;
-        if (!maxPlayer && (board[row][column] == 'W'))
-            return true;
-        return false;
+        if (maxPlayer) {
+            return (black & bit(row, column)) != 0;
+        }
+        return (white & bit(row, column)) != 0;
     }
 
     /**
@@ -316,53 +525,32 @@ public class OthelloPosition {
      * @return true or false.
      */
     public boolean isOwnSquare(int row, int column) {
-        if (!maxPlayer && (board[row][column] == 'B'))
-            return true;
-        if (maxPlayer && (board[row][column] == 'W'))
-            return true;
-        return false;
+        if (maxPlayer) {
+            return (white & bit(row, column)) != 0;
+        }
+        return (black & bit(row, column)) != 0;
     }
 
     /**
-     * Check if the position is a candidate for a move (not empty and has a neighbour)
+     * Check if the position is occupied by a white disc.
      *
      * @param row, row.
      * @param column, column.
      * @return true or false.
      */
-    private boolean isCandidate(int row, int column) {
-        if (!isFree(row, column))
-            return false;
-        if (hasNeighbor(row, column))
-            return true;
-        return false;
+    public boolean isWhiteSquare(int row, int column) {
+        return (white & bit(row, column)) != 0;
     }
 
     /**
-     * Check if the position has any non-empty squares
+     * Check if the position is occupied by a black disc.
      *
      * @param row, row.
      * @param column, column.
      * @return true or false.
      */
-    private boolean hasNeighbor(int row, int column) {
-        if (!isFree(row - 1, column))
-            return true;
-        if (!isFree(row - 1, column + 1))
-            return true;
-        if (!isFree(row, column + 1))
-            return true;
-        if (!isFree(row + 1, column + 1))
-            return true;
-        if (!isFree(row + 1, column))
-            return true;
-        if (!isFree(row + 1, column - 1))
-            return true;
-        if (!isFree(row, column - 1))
-            return true;
-        if (!isFree(row - 1, column - 1))
-            return true;
-        return false;
+    public boolean isBlackSquare(int row, int column) {
+        return (black & bit(row, column)) != 0;
     }
 
     /**
@@ -373,9 +561,28 @@ public class OthelloPosition {
      * @return true or false.
      */
     public boolean isFree(int row, int column) {
-        if (board[row][column] == 'E')
-            return true;
-        return false;
+        return ((white | black) & bit(row, column)) == 0;
+    }
+
+    /**
+     * Returns the white discs as a bitboard.
+     */
+    public long getWhite() {
+        return white;
+    }
+
+    /**
+     * Returns the black discs as a bitboard.
+     */
+    public long getBlack() {
+        return black;
+    }
+
+    /**
+     * Returns the number of empty squares on the board.
+     */
+    public int getEmptyCount() {
+        return 64 - Long.bitCount(white | black);
     }
 
     /* toMove */
@@ -398,229 +605,349 @@ public class OthelloPosition {
     public OthelloPosition makeMove(OthelloAction action) throws IllegalMoveException {
         // If the action is a pass action.
         if (action.isPassMove()) {
-            if (!getMoves().isEmpty()){
+            if (getMoveMask() != 0) {
                 throw new IllegalMoveException(action);
             }
             return moveShouldBePassed();
         }
 
-        // Get the row and column from the placed brick.
-        int row = action.getRow();
-        int column = action.getColumn();
+        long placed = bit(action.getRow(), action.getColumn());
+        if (placed == 0 || ((white | black) & placed) != 0) {
+            throw new IllegalMoveException(action);
+        }
+        int square = Long.numberOfTrailingZeros(placed);
+
+        long flipped = maxPlayer ? flips(white, black, square) : flips(black, white, square);
+        if (flipped == 0) {
+            throw new IllegalMoveException(action);
+        }
 
         // Makes a copy of the current position on the board, we will not modify the original position.
         OthelloPosition currentPosCloned = this.clone();
 
-        boolean whitesMove = this.maxPlayer;
-
         // Lay the played stone on the copied board and flips the bricks according to the placed brick.
-        if (whitesMove) {
-            currentPosCloned.board[row][column] = 'W';
-            turnOverBricksAllDirections(row, column, currentPosCloned, 'W');
-
+        if (maxPlayer) {
+            currentPosCloned.white |= placed | flipped;
+            currentPosCloned.black &= ~flipped;
         } else {
-            currentPosCloned.board[row][column] = 'B';
-            turnOverBricksAllDirections(row, column, currentPosCloned, 'B');
+            currentPosCloned.black |= placed | flipped;
+            currentPosCloned.white &= ~flipped;
         }
 
         // Switch side to move
         currentPosCloned.maxPlayer = !this.maxPlayer;
+        currentPosCloned.hash ^= moveKey(square, flipped, maxPlayer);
+        if (squareValues != null) {
+            currentPosCloned.squareScore += moveScore(squareValues, square, flipped, maxPlayer);
+        }
 
         return currentPosCloned;
     }
 
     /**
-     * Flips taken squares in all eight directions from (row, column).
+     * Makes the move <code>action</code> in this position instead of in a copy.
+     * The move can be taken back with <code>undoMove</code>.
      *
-     * @param row, row.
-     * @param column, column.
-     * @param copiedPos a cloned board to change.
-     * @param colour, W or B for stone that is just placed.
+     * @param action, move to make.
+     * @throws IllegalMoveException if the move is not legal in this position.
      */
-    private void turnOverBricksAllDirections(int row, int column, OthelloPosition copiedPos, char colour) {
-        northTurnBricks(row, column, copiedPos, colour);
-        northEastTurnBricks(row, column, copiedPos, colour);
-        eastTurnBricks(row, column, copiedPos, colour);
-        southEastTurnBricks(row, column, copiedPos, colour);
-        southTurnBricks(row, column, copiedPos, colour);
-        southWestTurnBricks(row, column, copiedPos, colour);
-        westTurnBricks(row, column, copiedPos, colour);
-        northWestTurnBricks(row, column, copiedPos, colour);
+    public void doMove(OthelloAction action) throws IllegalMoveException {
+        if (action.isPassMove()) {
+            if (getMoveMask() != 0) {
+                throw new IllegalMoveException(action);
+            }
+            doPass();
+            return;
+        }
+
+        long placed = bit(action.getRow(), action.getColumn());
+        if (placed == 0 || ((white | black) & placed) != 0) {
+            throw new IllegalMoveException(action);
+        }
+        int square = Long.numberOfTrailingZeros(placed);
+        long flipped = maxPlayer ? flips(white, black, square) : flips(black, white, square);
+        if (flipped == 0) {
+            throw new IllegalMoveException(action);
+        }
+        place(square, flipped);
     }
 
     /**
-     * @brief Flips the bricks in north direction from the current position.
+     * Places a disc for the player to move on <code>square</code>, flips the
+     * taken discs and hands the move over. The square must be a legal move,
+     * for example one taken from <code>getMoveMask()</code>.
      *
-     * @param row the row of the placed brick
-     * @param column the column of the placed brick
-     * @param copiedPos the copied position with all the bricks that will be updated
-     * @param colour the color of the placed brick
+     * @param square, square index 0-63.
      */
-    private void northTurnBricks(int row, int column, OthelloPosition copiedPos, char colour){
-        if (checkNorth(row, column)) {
-            for (int i = row - 1; i > 0; i--) {
-                if (isOwnSquare(i, column)) {
-                    break;
-                }
-                copiedPos.board[i][column] = colour;
-            }
+    public void doMove(int square) {
+        if (maxPlayer) {
+            place(square, flips(white, black, square));
+        } else {
+            place(square, flips(black, white, square));
         }
     }
 
     /**
-     * @brief Flips the bricks in northEast direction from the current position.
+     * Puts the disc and the flipped discs on the board for the player to move,
+     * records them on the undo stack and hands the move over.
      *
-     * @param row the row of the placed brick
-     * @param column the column of the placed brick
-     * @param copiedPos the copied position with all the bricks that will be updated
-     * @param colour the color of the placed brick
+     * @param square, square index 0-63.
+     * @param flipped, discs flipped by the move.
      */
-    private void northEastTurnBricks(int row, int column, OthelloPosition copiedPos, char colour) {
-        if(checkNorthEast(row, column)){
-            for (int i = 1; row - i > 0 && column + i <= BOARD_SIZE; i++) {
-                if (isOwnSquare(row - i, column + i)) {
-                    break;
-                }
-                copiedPos.board[row - i][column + i] = colour;
-            }
+    private void place(int square, long flipped) {
+        long placed = 1L << square;
+        if (maxPlayer) {
+            white |= placed | flipped;
+            black &= ~flipped;
+        } else {
+            black |= placed | flipped;
+            white &= ~flipped;
+        }
+        hash ^= moveKey(square, flipped, maxPlayer);
+        int scoreChange = 0;
+        if (squareValues != null) {
+            scoreChange = moveScore(squareValues, square, flipped, maxPlayer);
+            squareScore += scoreChange;
         }
+        push(square, flipped, scoreChange);
+        maxPlayer = !maxPlayer;
     }
 
     /**
-     * @brief Flips the bricks in east direction from the current position.
-     *
-     * @param row the row of the placed brick
-     * @param column the column of the placed brick
-     * @param copiedPos the copied position with all the bricks that will be updated
-     * @param colour the color of the placed brick
+     * Hands the move over to the other player in this position.
      */
-    private void eastTurnBricks(int row, int column, OthelloPosition copiedPos, char colour){
-        if(checkEast(row, column)){
-            for (int i = column + 1; i <= BOARD_SIZE; i++) {
-                if (isOwnSquare(row, i)) {
-                    break;
-                }
-                copiedPos.board[row][i] = colour;
-            }
+    public void doPass() {
+        push(PASS, 0L, 0);
+        maxPlayer = !maxPlayer;
+        hash ^= WHITE_TO_MOVE_KEY;
+    }
+
+    /**
+     * Takes back the latest move made by <code>doMove</code> or <code>doPass</code>.
+     */
+    public void undoMove() {
+        ply--;
+        int square = undoSquares[ply];
+        maxPlayer = !maxPlayer;
+        if (square == PASS) {
+            hash ^= WHITE_TO_MOVE_KEY;
+            return;
         }
+
+        long placed = 1L << square;
+        long flipped = undoFlips[ply];
+        if (maxPlayer) {
+            white &= ~(placed | flipped);
+            black |= flipped;
+        } else {
+            black &= ~(placed | flipped);
+            white |= flipped;
+        }
+        hash ^= moveKey(square, flipped, maxPlayer);
+        squareScore -= undoScores[ply];
     }
 
     /**
-     * @brief Flips the bricks in southEast direction from the current position.
+     * Records a move on the undo stack.
      *
-     * @param row the row of the placed brick
-     * @param column the column of the placed brick
-     * @param copiedPos the copied position with all the bricks that will be updated
-     * @param colour the color of the placed brick
-     */
-    private void southEastTurnBricks(int row, int column, OthelloPosition copiedPos, char colour){
-        if(checkSouthEast(row, column)){
-            for (int i = 1; row + i <= BOARD_SIZE && column + i <= BOARD_SIZE; i++) {
-                if (isOwnSquare(row + i, column + i)) {
-                    break;
-                }
-                copiedPos.board[row + i][column + i] = colour;
-            }
+     * @param square, square played or PASS.
+     * @param flipped, discs flipped by the move.
+     * @param scoreChange, change of the running score.
+     */
+    private void push(int square, long flipped, int scoreChange) {
+        if (undoSquares == null) {
+            undoSquares = new int[MAX_PLIES];
+            undoFlips = new long[MAX_PLIES];
+            undoScores = new int[MAX_PLIES];
         }
+        undoSquares[ply] = square;
+        undoFlips[ply] = flipped;
+        undoScores[ply] = scoreChange;
+        ply++;
     }
 
     /**
-     * @brief Flips the bricks in south direction from the current position.
+     * Handles position when it should be passed, switches the side to move.
      *
-     * @param row the row of the placed brick
-     * @param column the column of the placed brick
-     * @param copiedPos the copied position with all the bricks that will be updated
-     * @param colour the color of the placed brick
+     * @return new position with the turn handed over.
      */
-    private void southTurnBricks(int row, int column, OthelloPosition copiedPos, char colour){
-        if(checkSouth(row, column)){
-            for (int i = row + 1; i <= BOARD_SIZE; i++) {
-                if (isOwnSquare(i, column)) {
-                    break;
-                }
-                copiedPos.board[i][column] = colour;
-            }
-        }
+    private OthelloPosition moveShouldBePassed() {
+        OthelloPosition thisPosition = this.clone();
+        thisPosition.maxPlayer = !this.maxPlayer;
+        thisPosition.hash ^= WHITE_TO_MOVE_KEY;
+        return thisPosition;
+    }
+
+    /**
+     * Returns a new <code>OthelloPosition</code>, identical to the current one.
+     * The undo stack is not copied.
+     */
+    protected OthelloPosition clone() {
+        OthelloPosition newPosition = new OthelloPosition();
+        newPosition.maxPlayer = maxPlayer;
+        newPosition.white = white;
+        newPosition.black = black;
+        newPosition.hash = hash;
+        newPosition.squareValues = squareValues;
+        newPosition.squareScore = squareScore;
+        return newPosition;
     }
 
+    /* hashing */
+
     /**
-     * @brief Flips the bricks in southWest direction from the current position.
+     * Returns the 64-bit Zobrist hash of the position, including the side to move.
      *
-     * @param row the row of the placed brick
-     * @param column the column of the placed brick
-     * @param copiedPos the copied position with all the bricks that will be updated
-     * @param colour the color of the placed brick
+     * @return position hash.
      */
-    private void southWestTurnBricks(int row, int column, OthelloPosition copiedPos, char colour){
-        if(checkSouthWest(row, column)){
-            for (int i = 1; row + i <= BOARD_SIZE && column - i > 0; i++) {
-                if (isOwnSquare(row + i, column - i)) {
-                    break;
-                }
-                copiedPos.board[row + i][column - i] = colour;
-            }
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the Zobrist hash the position would have after mapping it by
+     * one of the symmetries of the board.
+     *
+     * @param symmetry, 0 to 7, as for <code>transform</code>.
+     * @return hash of the mapped position.
+     */
+    public long getHash(int symmetry) {
+        if (symmetry == 0) {
+            return hash;
         }
+        return computeHash(transform(white, symmetry), transform(black, symmetry), maxPlayer);
     }
 
     /**
-     * @brief Flips the bricks in west direction from the current position.
+     * Computes the Zobrist hash from scratch by visiting every disc.
      *
-     * @param row the row of the placed brick
-     * @param column the column of the placed brick
-     * @param copiedPos the copied position with all the bricks that will be updated
-     * @param colour the color of the placed brick
+     * @return position hash.
      */
-    private void westTurnBricks(int row, int column, OthelloPosition copiedPos, char colour){
-        if(checkWest(row, column)){
-            for (int i = column - 1; i > 0; i--) {
-                if (isOwnSquare(row, i)) {
-                    break;
-                }
-                copiedPos.board[row][i] = colour;
-            }
+    private long computeHash() {
+        return computeHash(white, black, maxPlayer);
+    }
+
+    /**
+     * Computes the Zobrist hash of the given discs and side to move.
+     *
+     * @param white, white discs.
+     * @param black, black discs.
+     * @param whiteToMove, true if white has the move.
+     * @return position hash.
+     */
+    private static long computeHash(long white, long black, boolean whiteToMove) {
+        long key = whiteToMove ? WHITE_TO_MOVE_KEY : 0L;
+        for (long w = white; w != 0; w &= w - 1) {
+            key ^= WHITE_KEYS[Long.numberOfTrailingZeros(w)];
+        }
+        for (long b = black; b != 0; b &= b - 1) {
+            key ^= BLACK_KEYS[Long.numberOfTrailingZeros(b)];
         }
+        return key;
     }
 
     /**
-     * @brief Flips the bricks in northWest direction from the current position.
+     * Returns what a move changes in the hash: the placed disc, every flipped
+     * disc and the side to move. Applying it twice takes the move back.
      *
-     * @param row the row of the placed brick
-     * @param column the column of the placed brick
-     * @param copiedPos the copied position with all the bricks that will be updated
-     * @param colour the color of the placed brick
+     * @param square, square of the placed disc.
+     * @param flipped, discs flipped by the move.
+     * @param whiteMoves, true if white made the move.
+     * @return key to xor into the hash.
+     */
+    private static long moveKey(int square, long flipped, boolean whiteMoves) {
+        long key = (whiteMoves ? WHITE_KEYS[square] : BLACK_KEYS[square]) ^ WHITE_TO_MOVE_KEY;
+        for (; flipped != 0; flipped &= flipped - 1) {
+            key ^= FLIP_KEYS[Long.numberOfTrailingZeros(flipped)];
+        }
+        return key;
+    }
+
+    /**
+     * Two positions are equal when they have the same discs and the same
+     * player to move.
+     *
+     * @param o, object to compare with.
+     * @return true if equal, else false.
      */
-    private void northWestTurnBricks(int row, int column, OthelloPosition copiedPos, char colour){
-        if (checkNorthWest(row, column)) {
-            for (int i = 1; row - i > 0 && column - i > 0; i++) {
-                if (isOwnSquare(row - i, column - i)) {
-                    break;
-                }
-                copiedPos.board[row - i][column - i] = colour;
-            }
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof OthelloPosition)) {
+            return false;
         }
+        OthelloPosition other = (OthelloPosition) o;
+        return white == other.white && black == other.black && maxPlayer == other.maxPlayer;
     }
 
     /**
-     * Handles position when it should be passed, switches the side to move.
+     * Returns a hash code taken from the Zobrist hash.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    /* running score */
+
+    /**
+     * Starts keeping a running score with the given disc values. The score is
+     * computed once here and then updated by every move and undo, and copies
+     * of the position keep it too. Moves made before it was set must not be
+     * taken back, since their change of the score was not recorded.
      *
-     * @return new position with the turn handed over.
+     * @param values, value of a white disc on each square, a black disc counts
+     *                negative, or null to stop keeping a score.
+     */
+    public void setSquareValues(int[] values) {
+        squareValues = values;
+        squareScore = 0;
+        if (values == null) {
+            return;
+        }
+        for (long w = white; w != 0; w &= w - 1) {
+            squareScore += values[Long.numberOfTrailingZeros(w)];
+        }
+        for (long b = black; b != 0; b &= b - 1) {
+            squareScore -= values[Long.numberOfTrailingZeros(b)];
+        }
+    }
+
+    /**
+     * Returns the disc values the running score is kept with.
+     *
+     * @return the values given to <code>setSquareValues</code>, or null.
      */
-    private OthelloPosition moveShouldBePassed() {
-        OthelloPosition thisPosition = this.clone();
-        thisPosition.maxPlayer = !this.maxPlayer;
-        return thisPosition;
+    public int[] getSquareValues() {
+        return squareValues;
     }
 
     /**
-     * Returns a new <code>OthelloPosition</code>, identical to the current one.
+     * Returns the running score, the values of the white discs minus the
+     * values of the black discs.
+     *
+     * @return running score, 0 if no score is kept.
      */
-    protected OthelloPosition clone() {
-        OthelloPosition newPosition = new OthelloPosition();
-        newPosition.maxPlayer = maxPlayer;
-        for (int i = 0; i < BOARD_SIZE + 2; i++)
-            for (int j = 0; j < BOARD_SIZE + 2; j++)
-                newPosition.board[i][j] = board[i][j];
-        return newPosition;
+    public int getSquareScore() {
+        return squareScore;
+    }
+
+    /**
+     * Returns what a move changes in the running score: the placed disc
+     * counts once, every flipped disc twice, since it changes sides.
+     *
+     * @param values, value of a disc on each square.
+     * @param square, square of the placed disc.
+     * @param flipped, discs flipped by the move.
+     * @param whiteMoves, true if white made the move.
+     * @return change of the score.
+     */
+    private static int moveScore(int[] values, int square, long flipped, boolean whiteMoves) {
+        int flippedValue = 0;
+        for (; flipped != 0; flipped &= flipped - 1) {
+            flippedValue += values[Long.numberOfTrailingZeros(flipped)];
+        }
+        int change = values[square] + 2 * flippedValue;
+        return whiteMoves ? change : -change;
     }
 
     /* illustrate and other output functions */
@@ -638,9 +965,9 @@ public class OthelloPosition {
         for (int i = 1; i <= BOARD_SIZE; i++) {
             System.out.print(" " + i + " ");
             for (int j = 1; j <= BOARD_SIZE; j++) {
-                if (board[i][j] == 'W') {
+                if (isWhiteSquare(i, j)) {
                     System.out.print("| 0 ");
-                } else if (board[i][j] == 'B') {
+                } else if (isBlackSquare(i, j)) {
                     System.out.print("| X ");
                 } else {
                     System.out.print("|   ");
@@ -672,26 +999,21 @@ public class OthelloPosition {
      * @return position string.
      */
     public String toString() {
-        String s = "";
-        char c, d;
+        StringBuilder s = new StringBuilder(65);
         if (maxPlayer) {
-            s += "W";
+            s.append('W');
         } else {
-            s += "B";
-        }
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                d = board[i][j];
-                if (d == 'W') {
-                    c = 'O';
-                } else if (d == 'B') {
-                    c = 'X';
-                } else {
-                    c = 'E';
-                }
-                s += c;
+            s.append('B');
+        }
+        for (int i = 0; i < 64; i++) {
+            if ((white & (1L << i)) != 0) {
+                s.append('O');
+            } else if ((black & (1L << i)) != 0) {
+                s.append('X');
+            } else {
+                s.append('E');
             }
         }
-        return s;
+        return s.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,427 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Young Brothers Wait, a parallel form of the principal variation search.
+ *
+ * At every node the eldest child, the first move in the ordering, is searched
+ * on its own first. Its score gives a window for the younger children, which
+ * are then searched at the same time as tasks in a <code>ForkJoinPool</code>.
+ * The children of one node share its bounds: a child that raises alpha makes
+ * the siblings started after it scout a narrower window, and a child that
+ * causes a cutoff stops the siblings that are still waiting or running.
+ *
+ * Nodes with little depth left are searched serially, splitting them costs
+ * more than it gains. The transposition table is shared by all workers. Every
+ * worker thread has its own move ordering, move buffers and evaluator, since
+ * none of them can be shared.
+ *
+ * The deadline from <code>setStopTime</code> holds for all workers. The first
+ * worker that passes it throws <code>TimeIsUpExeption</code>, the other tasks
+ * are stopped and the exception reaches the caller of <code>evaluate</code>.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class ParallelAlphaBeta extends PrincipalVariationSearch {
+
+	/**
+	 * Nodes with less depth left than this are searched serially.
+	 */
+	private static final int MIN_SPLIT_DEPTH = 3;
+
+	/**
+	 * Thrown to unwind the search of a subtree whose result is no longer
+	 * needed because a node above it got a cutoff.
+	 */
+	private static final SearchAborted ABORTED = new SearchAborted();
+
+	private final ForkJoinPool pool;
+	private final Supplier<OthelloEvaluator> evaluators;
+	private final ThreadLocal<Worker> workers;
+	private final LongAdder parallelNodes = new LongAdder();
+
+	/**
+	 * Number of the current search, workers reset their ordering when it changes.
+	 */
+	private volatile int searchId;
+	private int maxPlies;
+	private int rootMove;
+
+	/**
+	 * Creates a parallel search with the given number of worker threads.
+	 *
+	 * @param evaluators, makes one evaluator for every worker thread.
+	 * @param threads, number of worker threads.
+	 */
+	public ParallelAlphaBeta(Supplier<OthelloEvaluator> evaluators, int threads) {
+		super(evaluators.get());
+		this.evaluators = evaluators;
+		this.pool = new ForkJoinPool(threads);
+		this.workers = ThreadLocal.withInitial(Worker::new);
+	}
+
+	/**
+	 * Returns the number of nodes visited so far by all workers.
+	 *
+	 * @return node count.
+	 */
+	@Override
+	public long getNodeCount() {
+		return parallelNodes.sum();
+	}
+
+	/**
+	 * Picks the best move from the given position by a parallel search.
+	 *
+	 * If there is no legal moves the method will return pass.
+	 *
+	 * @param pos, current game position.
+	 * @return best action.
+	 * @throws TimeIsUpExeption if the stop time is reached in any worker.
+	 */
+	@Override
+	public OthelloAction evaluate(OthelloPosition pos) throws IllegalMoveException {
+		partialMove = OthelloPosition.PASS;
+		ensureTable();
+		stopTimeOrNot();
+		if (pos.getMoveMask() == 0) {
+			return new OthelloAction("pass");
+		}
+
+		// Passes do not use up depth, so a line can be up to twice as long as the depth.
+		maxPlies = 2 * searchDepth + 2;
+		searchId++;
+		rootMove = OthelloPosition.PASS;
+
+		boolean whiteToMove = pos.toMove();
+		int alpha = whiteToMove ? windowAlpha : -windowBeta;
+		int beta = whiteToMove ? windowBeta : -windowAlpha;
+		OthelloPosition board = searchBoard(pos, evaluator);
+
+		int bestScore = pool.invoke(new RecursiveTask<Integer>() {
+			@Override
+			protected Integer compute() {
+				return search(board, alpha, beta, searchDepth, 0, null);
+			}
+		});
+
+		score = whiteToMove ? bestScore : -bestScore;
+		return OthelloAction.fromSquare(rootMove);
+	}
+
+	/**
+	 * Searches a node from the view of the player to move.
+	 *
+	 * @param pos, position to search, owned by the calling task.
+	 * @param alpha, lower bound.
+	 * @param beta, upper bound.
+	 * @param depth, remaining depth.
+	 * @param ply, distance from the root.
+	 * @param parent, the closest split node above, or null at the top.
+	 * @return score for the player to move, a bound if outside the window.
+	 */
+	private int search(OthelloPosition pos, int alpha, int beta, int depth, int ply, SplitNode parent) {
+		stopTimeOrNot();
+		if (parent != null && parent.isAborted()) {
+			throw ABORTED;
+		}
+		parallelNodes.increment();
+		Worker worker = worker();
+
+		if (depth == 0) {
+			// The evaluator scores from white's view, for black the window is turned around.
+			return pos.toMove() ? worker.evaluator.evaluate(pos, alpha, beta) : -worker.evaluator.evaluate(pos, -beta, -alpha);
+		}
+
+		int symmetry = tableSymmetry(pos);
+		long key = pos.getHash(symmetry);
+		long entry = table.probe(key);
+		// The root is always searched, it has to come up with a move.
+		if (ply > 0 && entry != TranspositionTable.MISS && TranspositionTable.depthOf(entry) >= depth
+				&& cutsOff(entry, alpha, beta)) {
+			return TranspositionTable.scoreOf(entry);
+		}
+
+		// A node that splits waits for its children, and the thread may run other
+		// tasks meanwhile, so it needs a move list of its own.
+		boolean split = depth >= MIN_SPLIT_DEPTH;
+		int[] moves = split ? new int[OthelloPosition.MAX_MOVES] : worker.moveLists[ply];
+		int moveCount = pos.getMoves(moves);
+
+		if (moveCount == 0) {
+			long own = pos.toMove() ? pos.getWhite() : pos.getBlack();
+			long opp = pos.toMove() ? pos.getBlack() : pos.getWhite();
+			if (OthelloPosition.legalMoves(opp, own) == 0) {
+				return gameOverScore(own, opp);
+			}
+			pos.doPass();
+			int passScore = -search(pos, -beta, -alpha, depth, ply + 1, parent);
+			pos.undoMove();
+			return passScore;
+		}
+
+		int hashMove = hashMove(entry, symmetry);
+		worker.ordering.order(pos, moves, moveCount, ply, depth, hashMove);
+
+		int alphaAtStart = alpha;
+		boolean whiteToMove = pos.toMove();
+
+		// The eldest brother is always searched first, on its own.
+		pos.doMove(moves[0]);
+		int bestScore = -search(pos, -beta, -alpha, depth - 1, ply + 1, parent);
+		pos.undoMove();
+		int bestMove = moves[0];
+		alpha = Math.max(alpha, bestScore);
+		if (ply == 0) {
+			provePartialMove(moves, 0, false);
+		}
+
+		if (alpha < beta && moveCount > 1) {
+			if (split) {
+				SplitNode node = new SplitNode(parent, alpha, beta, bestScore, bestMove);
+				try {
+					searchYoungerBrothers(node, pos, moves, moveCount, depth, ply);
+				} finally {
+					if (ply == 0) {
+						partialMove = node.provenMove;
+					}
+				}
+				bestScore = node.bestScore;
+				bestMove = node.bestMove;
+			} else {
+				for (int i = 1; i < moveCount && alpha < beta; i++) {
+					pos.doMove(moves[i]);
+					int childScore = -search(pos, -alpha - 1, -alpha, depth - 1, ply + 1, parent);
+					if (childScore > alpha && childScore < beta) {
+						childScore = -search(pos, -beta, -alpha, depth - 1, ply + 1, parent);
+					}
+					pos.undoMove();
+					if (ply == 0) {
+						provePartialMove(moves, i, childScore > alpha);
+					}
+
+					if (childScore > bestScore) {
+						bestScore = childScore;
+						bestMove = moves[i];
+						alpha = Math.max(alpha, childScore);
+					}
+				}
+			}
+		}
+
+		if (bestScore >= beta) {
+			worker.ordering.cutoff(bestMove, ply, depth, whiteToMove, bestMove == moves[0] ? 0 : 1);
+		}
+		table.store(key, depth, boundType(bestScore, alphaAtStart, beta), bestScore, tableMove(bestMove, symmetry));
+		if (ply == 0) {
+			rootMove = bestMove;
+		}
+		return bestScore;
+	}
+
+	/**
+	 * Searches all children but the eldest of a split node as parallel tasks
+	 * and waits for them.
+	 *
+	 * @param node, the split node, collects the result.
+	 * @param pos, position of the node.
+	 * @param moves, ordered moves of the node.
+	 * @param moveCount, number of moves.
+	 * @param depth, remaining depth of the node.
+	 * @param ply, distance of the node from the root.
+	 */
+	private void searchYoungerBrothers(SplitNode node, OthelloPosition pos, int[] moves, int moveCount,
+									   int depth, int ply) {
+		BrotherTask[] tasks = new BrotherTask[moveCount - 1];
+		node.tasks = tasks;
+		for (int i = 1; i < moveCount; i++) {
+			OthelloPosition child = pos.clone();
+			child.doMove(moves[i]);
+			tasks[i - 1] = new BrotherTask(node, child, moves[i], depth - 1, ply + 1);
+		}
+		for (int i = tasks.length - 1; i > 0; i--) {
+			tasks[i].fork();
+		}
+
+		// The first younger brother runs in this thread, the others may be stolen.
+		RuntimeException failure = null;
+		for (int i = 0; i < tasks.length; i++) {
+			try {
+				if (i == 0) {
+					tasks[i].invoke();
+				} else {
+					tasks[i].join();
+				}
+			} catch (CancellationException e) {
+				// Cancelled by a cutoff before it started.
+			} catch (RuntimeException e) {
+				if (!(e instanceof SearchAborted) && failure == null) {
+					failure = e;
+				}
+				node.abort();
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+		if (node.parent != null && node.parent.isAborted()) {
+			throw ABORTED;
+		}
+	}
+
+	/**
+	 * Returns the state of the current worker thread, reset for the current search.
+	 */
+	private Worker worker() {
+		Worker worker = workers.get();
+		if (worker.searchId != searchId) {
+			worker.newSearch(searchId, maxPlies);
+		}
+		return worker;
+	}
+
+	/**
+	 * Unwinds an aborted subtree. Shared and without a stack trace, since it is
+	 * thrown often, and without a public constructor, so that the fork/join
+	 * framework passes the shared instance on instead of making a copy.
+	 */
+	private static final class SearchAborted extends RuntimeException {
+
+		private SearchAborted() {
+			super("Search aborted by a cutoff", null, false, false);
+		}
+	}
+
+	/**
+	 * A node whose younger children are searched in parallel. The children
+	 * read its bounds when they start and report their scores to it.
+	 */
+	private static final class SplitNode {
+
+		private final SplitNode parent;
+		private volatile int alpha;
+		private final int beta;
+		private volatile boolean aborted;
+		private int bestScore;
+		private int bestMove;
+		private BrotherTask[] tasks;
+
+		/**
+		 * Best move proven better than the ones before it, starting with the eldest brother.
+		 */
+		private int provenMove;
+
+		private SplitNode(SplitNode parent, int alpha, int beta, int bestScore, int bestMove) {
+			this.parent = parent;
+			this.alpha = alpha;
+			this.beta = beta;
+			this.bestScore = bestScore;
+			this.bestMove = bestMove;
+			this.provenMove = bestMove;
+		}
+
+		/**
+		 * Records the score of a child. On a cutoff the other children are stopped.
+		 */
+		private synchronized void report(int childScore, int move) {
+			if (aborted || childScore <= bestScore) {
+				return;
+			}
+			bestScore = childScore;
+			bestMove = move;
+			if (childScore > alpha) {
+				alpha = childScore;
+				provenMove = move;
+			}
+			if (alpha >= beta) {
+				abort();
+			}
+		}
+
+		/**
+		 * Stops the children: the waiting ones are cancelled, the running ones
+		 * see the flag at their next node.
+		 */
+		private void abort() {
+			aborted = true;
+			for (BrotherTask task : tasks) {
+				task.cancel(false);
+			}
+		}
+
+		/**
+		 * Returns true if this node or a split node above it has been stopped.
+		 */
+		private boolean isAborted() {
+			for (SplitNode node = this; node != null; node = node.parent) {
+				if (node.aborted) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Searches one younger child of a split node, with a null window scout
+	 * and a full search again if the scout fails high.
+	 */
+	private final class BrotherTask extends RecursiveAction {
+
+		private final SplitNode node;
+		private final OthelloPosition child;
+		private final int move;
+		private final int depth;
+		private final int ply;
+
+		private BrotherTask(SplitNode node, OthelloPosition child, int move, int depth, int ply) {
+			this.node = node;
+			this.child = child;
+			this.move = move;
+			this.depth = depth;
+			this.ply = ply;
+		}
+
+		@Override
+		protected void compute() {
+			int alpha = node.alpha;
+			int beta = node.beta;
+			if (alpha >= beta) {
+				return;
+			}
+			int childScore = -search(child, -alpha - 1, -alpha, depth, ply, node);
+			if (childScore > alpha && childScore < beta) {
+				childScore = -search(child, -beta, -alpha, depth, ply, node);
+			}
+			node.report(childScore, move);
+		}
+	}
+
+	/**
+	 * What one worker thread needs for itself: a move ordering, move buffers
+	 * for the serial part of the search and an evaluator.
+	 */
+	private final class Worker {
+
+		private final MoveOrdering ordering = new MoveOrdering();
+		private final OthelloEvaluator evaluator = evaluators.get();
+		private int[][] moveLists = new int[0][];
+		private int searchId = -1;
+
+		private void newSearch(int id, int plies) {
+			if (moveLists.length <= plies) {
+				moveLists = new int[plies + 1][OthelloPosition.MAX_MOVES];
+			}
+			ordering.newSearch(plies);
+			searchId = id;
+		}
+	}
+}
@@ -0,0 +1,293 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluator that scores the position by patterns of squares, with weights
+ * learned from games rather than written by hand.
+ *
+ * A pattern is a fixed group of squares. Each way the squares can be filled,
+ * empty, white or black, has its own weight, looked up with the state of the
+ * squares read as a base 3 number. The patterns are
+ *
+ *   - an edge and the two X squares next to its corners, 10 squares,
+ *   - the 3x3 block in a corner,
+ *   - the 2x5 block along an edge from a corner, 10 squares,
+ *   - the second, third and fourth row from an edge,
+ *   - the diagonals of length 4 to 8,
+ *
+ * each placed on the board in every way the board's symmetries give, 46
+ * placements in all. The placements of a pattern share one weight table, so
+ * a shape is worth the same wherever it lies. What a shape is worth changes
+ * over the game, so the weights are split in stages by the number of discs.
+ *
+ * The base 3 numbers of the placements are not recomputed at every leaf. The
+ * evaluator keeps them for the position it saw last, and the positions of a
+ * search follow each other closely: only the squares whose disc changed
+ * since then are looked at, and each changes the numbers of the three or
+ * four placements it belongs to.
+ *
+ * The weights are read from a file, see <code>PatternWeights</code>.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class PatternEvaluator implements OthelloEvaluator {
+
+    /**
+     * Number of game stages, each with its own weights. Stage s holds the
+     * positions with 4 * s + 4 to 4 * s + 7 discs, the full board is in the
+     * last stage.
+     */
+    static final int STAGES = 16;
+    private static final int DISCS_PER_STAGE = 4;
+    private static final int FIRST_DISCS = 4;
+
+    private static final int WHITE = 1;
+    private static final int BLACK = 2;
+
+    /**
+     * Squares of every pattern, as placed in the upper left. Digit k of the
+     * index is square k of the list.
+     */
+    private static final int[][] PATTERNS = {
+        // Upper edge and the squares (2,2) and (2,7).
+        { square(1, 1), square(1, 2), square(1, 3), square(1, 4),
+          square(1, 5), square(1, 6), square(1, 7), square(1, 8),
+          square(2, 2), square(2, 7) },
+        // Upper left 3x3 corner.
+        { square(1, 1), square(1, 2), square(1, 3),
+          square(2, 1), square(2, 2), square(2, 3),
+          square(3, 1), square(3, 2), square(3, 3) },
+        // Upper left 2x5 corner.
+        { square(1, 1), square(1, 2), square(1, 3), square(1, 4), square(1, 5),
+          square(2, 1), square(2, 2), square(2, 3), square(2, 4), square(2, 5) },
+        // Rows 2, 3 and 4.
+        row(2),
+        row(3),
+        row(4),
+        // Diagonals of length 8 to 4.
+        diagonal(8),
+        diagonal(7),
+        diagonal(6),
+        diagonal(5),
+        diagonal(4),
+    };
+
+    /**
+     * Number of weights of each pattern, 3 to the number of its squares.
+     */
+    static final int[] TYPE_SIZES = new int[PATTERNS.length];
+
+    /**
+     * Position of each pattern's weights within a stage.
+     */
+    private static final int[] TYPE_OFFSETS = new int[PATTERNS.length];
+
+    /**
+     * Number of weights of a stage.
+     */
+    static final int STAGE_SIZE;
+
+    /**
+     * Squares of every placement, in the order of the digits, and the
+     * position of its pattern's weights within a stage.
+     */
+    static final int[][] PLACEMENTS;
+    private static final int[] PLACEMENT_OFFSETS;
+
+    /**
+     * For every square, the placements it belongs to and the value of its
+     * digit in each of them.
+     */
+    private static final int[][] SQUARE_PLACEMENTS = new int[64][];
+    private static final int[][] SQUARE_POWERS = new int[64][];
+
+    static {
+        int offset = 0;
+        for (int type = 0; type < PATTERNS.length; type++) {
+            TYPE_SIZES[type] = power3(PATTERNS[type].length);
+            TYPE_OFFSETS[type] = offset;
+            offset += TYPE_SIZES[type];
+        }
+        STAGE_SIZE = offset;
+
+        List<int[]> placements = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        for (int type = 0; type < PATTERNS.length; type++) {
+            List<Long> seen = new ArrayList<>();
+            for (int symmetry = 0; symmetry < OthelloPosition.SYMMETRIES; symmetry++) {
+                int[] squares = new int[PATTERNS[type].length];
+                long mask = 0L;
+                for (int k = 0; k < squares.length; k++) {
+                    squares[k] = OthelloPosition.transformSquare(PATTERNS[type][k], symmetry);
+                    mask |= 1L << squares[k];
+                }
+                if (!seen.contains(mask)) {
+                    seen.add(mask);
+                    placements.add(squares);
+                    offsets.add(TYPE_OFFSETS[type]);
+                }
+            }
+        }
+        PLACEMENTS = placements.toArray(new int[0][]);
+        PLACEMENT_OFFSETS = new int[PLACEMENTS.length];
+        for (int placement = 0; placement < PLACEMENTS.length; placement++) {
+            PLACEMENT_OFFSETS[placement] = offsets.get(placement);
+        }
+
+        for (int square = 0; square < 64; square++) {
+            int count = 0;
+            for (int[] squares : PLACEMENTS) {
+                for (int s : squares) {
+                    if (s == square) {
+                        count++;
+                    }
+                }
+            }
+            SQUARE_PLACEMENTS[square] = new int[count];
+            SQUARE_POWERS[square] = new int[count];
+            count = 0;
+            for (int placement = 0; placement < PLACEMENTS.length; placement++) {
+                for (int k = 0; k < PLACEMENTS[placement].length; k++) {
+                    if (PLACEMENTS[placement][k] == square) {
+                        SQUARE_PLACEMENTS[square][count] = placement;
+                        SQUARE_POWERS[square][count] = power3(k);
+                        count++;
+                    }
+                }
+            }
+        }
+    }
+
+    private final PatternWeights weights;
+
+    /**
+     * Position of the weight of every placement within a stage, for the
+     * position evaluated last, which starts out as the empty board.
+     */
+    private final int[] indices = PLACEMENT_OFFSETS.clone();
+    private long white;
+    private long black;
+
+    /**
+     * Creates an evaluator. Every search thread needs its own, the weights
+     * can be shared.
+     *
+     * @param weights, the weight tables.
+     */
+    public PatternEvaluator(PatternWeights weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Evaluates the given position.
+     *
+     * @param pos, position to evaluate.
+     * @return integer score, higher is better for White, lower is better for Black.
+     */
+    @Override
+    public int evaluate(OthelloPosition pos) {
+        long newWhite = pos.getWhite();
+        long newBlack = pos.getBlack();
+
+        long changed = (newWhite ^ white) | (newBlack ^ black);
+        for (; changed != 0; changed &= changed - 1) {
+            int square = Long.numberOfTrailingZeros(changed);
+            int change = state(newWhite, newBlack, square) - state(white, black, square);
+            int[] placements = SQUARE_PLACEMENTS[square];
+            int[] powers = SQUARE_POWERS[square];
+            for (int k = 0; k < placements.length; k++) {
+                indices[placements[k]] += change * powers[k];
+            }
+        }
+        white = newWhite;
+        black = newBlack;
+
+        int stage = stage(Long.bitCount(newWhite | newBlack));
+        int score = 0;
+        for (int offset : indices) {
+            score += weights.get(stage, offset);
+        }
+        return score;
+    }
+
+    /**
+     * Computes the base 3 number of every placement from scratch.
+     *
+     * @param white, white discs.
+     * @param black, black discs.
+     * @param indices, array of one number per placement, written to.
+     */
+    static void indices(long white, long black, int[] indices) {
+        for (int placement = 0; placement < PLACEMENTS.length; placement++) {
+            int[] squares = PLACEMENTS[placement];
+            int index = 0;
+            for (int k = squares.length - 1; k >= 0; k--) {
+                index = 3 * index + state(white, black, squares[k]);
+            }
+            indices[placement] = index;
+        }
+    }
+
+    /**
+     * Returns the position of a placement's weight within a stage.
+     *
+     * @param placement, the placement.
+     * @param index, base 3 number of the placement.
+     * @return position of the weight.
+     */
+    static int offset(int placement, int index) {
+        return PLACEMENT_OFFSETS[placement] + index;
+    }
+
+    /**
+     * Returns the game stage of a position.
+     *
+     * @param discs, number of discs on the board.
+     * @return the stage, 0 to STAGES - 1.
+     */
+    static int stage(int discs) {
+        return Math.min(STAGES - 1, (discs - FIRST_DISCS) / DISCS_PER_STAGE);
+    }
+
+    /**
+     * Returns the digit of a square, 0 if empty, 1 for white and 2 for black.
+     */
+    private static int state(long white, long black, int square) {
+        return (int) ((white >>> square) & 1) * WHITE + (int) ((black >>> square) & 1) * BLACK;
+    }
+
+    private static int square(int row, int column) {
+        return (row - 1) * 8 + (column - 1);
+    }
+
+    private static int[] row(int row) {
+        int[] squares = new int[8];
+        for (int k = 0; k < squares.length; k++) {
+            squares[k] = square(row, k + 1);
+        }
+        return squares;
+    }
+
+    /**
+     * Returns the squares of the diagonal of the given length that ends in
+     * the last column, starting from the upper edge.
+     */
+    private static int[] diagonal(int length) {
+        int[] squares = new int[length];
+        for (int k = 0; k < length; k++) {
+            squares[k] = square(k + 1, 8 - length + k + 1);
+        }
+        return squares;
+    }
+
+    private static int power3(int exponent) {
+        int power = 1;
+        for (int k = 0; k < exponent; k++) {
+            power *= 3;
+        }
+        return power;
+    }
+}
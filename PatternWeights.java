@@ -0,0 +1,119 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Weight tables of <code>PatternEvaluator</code>, read from a binary file.
+ *
+ * The file is mapped into memory with a <code>FileChannel</code>, not read.
+ * The weights then stay out of the Java heap, nothing is copied when the
+ * JVM starts, and the operating system only pages in the parts of the
+ * tables the search touches. Every move starts a new JVM, so this keeps
+ * startup short.
+ *
+ * File format, big endian:
+ *
+ *   int    MAGIC
+ *   int    VERSION
+ *   int    number of stages
+ *   int    number of pattern types
+ *   int    table size of every pattern type
+ *   short  the weights, stage by stage, and within a stage the tables of
+ *          the pattern types one after another
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class PatternWeights {
+
+    private static final int MAGIC = 0x4F545057;
+    private static final int VERSION = 1;
+
+    private final ShortBuffer weights;
+    private final int stageSize;
+
+    /**
+     * Creates weights from a buffer holding all stages.
+     *
+     * @param weights, the weights, laid out like in the file.
+     */
+    PatternWeights(ShortBuffer weights) {
+        this.weights = weights;
+        this.stageSize = PatternEvaluator.STAGE_SIZE;
+    }
+
+    /**
+     * Maps a weight file into memory.
+     *
+     * @param file, file written by <code>write</code>.
+     * @return the weights.
+     * @throws IOException if the file can not be read or does not fit the patterns.
+     */
+    public static PatternWeights map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 4 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(file + " is not a weight file");
+            }
+            int stages = buffer.getInt();
+            int types = buffer.getInt();
+            if (stages != PatternEvaluator.STAGES || types != PatternEvaluator.TYPE_SIZES.length) {
+                throw new IOException(file + " has weights for other patterns");
+            }
+            for (int type = 0; type < types; type++) {
+                if (buffer.getInt() != PatternEvaluator.TYPE_SIZES[type]) {
+                    throw new IOException(file + " has weights for other patterns");
+                }
+            }
+            if (buffer.remaining() != (long) stages * PatternEvaluator.STAGE_SIZE * Short.BYTES) {
+                throw new IOException(file + " is truncated");
+            }
+            return new PatternWeights(buffer.slice().asShortBuffer());
+        }
+    }
+
+    /**
+     * Writes weights to a file.
+     *
+     * @param file, file to write.
+     * @param weights, weights of every stage, each laid out like in the file.
+     * @throws IOException if the file can not be written.
+     */
+    public static void write(Path file, short[][] weights) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(weights.length);
+            out.writeInt(PatternEvaluator.TYPE_SIZES.length);
+            for (int size : PatternEvaluator.TYPE_SIZES) {
+                out.writeInt(size);
+            }
+            for (short[] stage : weights) {
+                for (short weight : stage) {
+                    out.writeShort(weight);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a weight.
+     *
+     * @param stage, game stage.
+     * @param offset, position of the weight within the stage.
+     * @return the weight.
+     */
+    public int get(int stage, int offset) {
+        return weights.get(stage * stageSize + offset);
+    }
+}
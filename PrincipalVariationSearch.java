@@ -0,0 +1,251 @@
+/**
+ * Principal Variation Search, a negamax form of alpha-beta.
+ *
+ * Instead of the mirrored <code>maxValue</code>/<code>minValue</code> pair of
+ * <code>AlphaBeta</code>, one method searches every node from the view of the
+ * player to move. The first child of a node is searched with the full window.
+ * The other children are only scouted with a null window to prove that they
+ * are not better, and are searched again with the full window when the scout
+ * fails high. With good move ordering most scouts succeed and the tree gets
+ * much smaller.
+ *
+ * The transposition table and the move ordering are the ones of
+ * <code>AlphaBeta</code>. Scores in the table are stored from the view of the
+ * player to move. A player without moves passes, and a position where
+ * neither player can move is scored as won or lost by its disc count.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class PrincipalVariationSearch extends AlphaBeta {
+
+	/**
+	 * Score of a won game, above every heuristic score.
+	 */
+	protected static final int WIN_SCORE = 1_000_000;
+
+	/**
+	 * Constructor that makes a PVS with default evaluator
+	 * and the default search depth.
+	 */
+	public PrincipalVariationSearch() {
+		super();
+	}
+
+	/**
+	 * Constructor that makes a PVS with a given evaluator
+	 * and the default search depth.
+	 *
+	 * @param eval, evaluator used to score positions.
+	 */
+	public PrincipalVariationSearch(OthelloEvaluator eval) {
+		super(eval);
+	}
+
+	/**
+	 * Constructor that makes a PVS with a given evaluator
+	 * and with a given search depth.
+	 *
+	 * @param eval, evaluator used to score positions.
+	 * @param depth, depth to search.
+	 */
+	public PrincipalVariationSearch(OthelloEvaluator eval, int depth) {
+		super(eval, depth);
+	}
+
+	/**
+	 * Picks the best move from the given position by principal variation search.
+	 *
+	 * If there is no legal moves the method will return pass.
+	 *
+	 * @param pos, current game position.
+	 * @return best action.
+	 */
+	@Override
+	public OthelloAction evaluate(OthelloPosition pos) throws IllegalMoveException {
+		partialMove = OthelloPosition.PASS;
+		ensureTable();
+		stopTimeOrNot();
+
+		// Passes do not use up depth, so a line can be up to twice as long as the depth.
+		int maxPlies = 2 * searchDepth + 2;
+		ensureMoveLists(maxPlies);
+		ordering.newSearch(maxPlies);
+
+		int[] moves = moveLists[0];
+		int moveCount = pos.getMoves(moves);
+		if (moveCount == 0) {
+			return new OthelloAction("pass");
+		}
+
+		// The window is given from white's view, the search sees it from the player to move.
+		boolean whiteToMove = pos.toMove();
+		int alpha = whiteToMove ? windowAlpha : -windowBeta;
+		int beta = whiteToMove ? windowBeta : -windowAlpha;
+		int alphaAtStart = alpha;
+
+		int symmetry = tableSymmetry(pos);
+		long key = pos.getHash(symmetry);
+		long entry = table.probe(key);
+		int hashMove = hashMove(entry, symmetry);
+		ordering.order(pos, moves, moveCount, 0, searchDepth, hashMove);
+
+		// The whole search walks this one copy with doMove/undoMove, the caller's position is left alone.
+		OthelloPosition board = searchBoard(pos, evaluator);
+
+		int bestScore = NEG_INFINITY;
+		int bestMove = moves[0];
+		for (int i = 0; i < moveCount; i++) {
+			stopTimeOrNot();
+			int childScore = searchChild(board, moves[i], i, alpha, beta, searchDepth - 1, 1);
+			provePartialMove(moves, i, childScore > alpha);
+
+			if (childScore > bestScore) {
+				bestScore = childScore;
+				bestMove = moves[i];
+				alpha = Math.max(alpha, childScore);
+			}
+			if (alpha >= beta) {
+				break;
+			}
+		}
+
+		table.store(key, searchDepth, boundType(bestScore, alphaAtStart, beta), bestScore, tableMove(bestMove, symmetry));
+		score = whiteToMove ? bestScore : -bestScore;
+		return OthelloAction.fromSquare(bestMove);
+	}
+
+	/**
+	 * Searches a node from the view of the player to move.
+	 *
+	 * @param pos, position to search, changed and restored in place.
+	 * @param alpha, lower bound.
+	 * @param beta, upper bound.
+	 * @param depth, remaining depth.
+	 * @param ply, distance from the root.
+	 * @return score for the player to move, a bound if outside the window.
+	 */
+	private int pvs(OthelloPosition pos, int alpha, int beta, int depth, int ply) {
+		stopTimeOrNot();
+		nodes++;
+
+		if (depth == 0) {
+			// The evaluator scores from white's view, for black the window is turned around.
+			return pos.toMove() ? evaluator.evaluate(pos, alpha, beta) : -evaluator.evaluate(pos, -beta, -alpha);
+		}
+
+		int symmetry = tableSymmetry(pos);
+		long key = pos.getHash(symmetry);
+		long entry = table.probe(key);
+		if (entry != TranspositionTable.MISS && TranspositionTable.depthOf(entry) >= depth
+				&& cutsOff(entry, alpha, beta)) {
+			return TranspositionTable.scoreOf(entry);
+		}
+
+		int[] moves = moveLists[ply];
+		int moveCount = pos.getMoves(moves);
+
+		if (moveCount == 0) {
+			return passOrGameOver(pos, alpha, beta, depth, ply);
+		}
+
+		int hashMove = hashMove(entry, symmetry);
+		ordering.order(pos, moves, moveCount, ply, depth, hashMove);
+
+		int alphaAtStart = alpha;
+		int bestScore = NEG_INFINITY;
+		int bestMove = moves[0];
+		boolean whiteToMove = pos.toMove();
+
+		for (int i = 0; i < moveCount; i++) {
+			int childScore = searchChild(pos, moves[i], i, alpha, beta, depth - 1, ply + 1);
+
+			if (childScore > bestScore) {
+				bestScore = childScore;
+				bestMove = moves[i];
+				alpha = Math.max(alpha, childScore);
+			}
+			if (alpha >= beta) {
+				ordering.cutoff(moves[i], ply, depth, whiteToMove, i);
+				break;
+			}
+		}
+
+		table.store(key, depth, boundType(bestScore, alphaAtStart, beta), bestScore, tableMove(bestMove, symmetry));
+		return bestScore;
+	}
+
+	/**
+	 * Plays one child and searches it. The first child gets the full window,
+	 * the others a null window scout that is searched again on fail-high.
+	 *
+	 * @param pos, position to play the move in.
+	 * @param move, square to play.
+	 * @param moveIndex, position of the move in the ordered list.
+	 * @param alpha, lower bound of the parent.
+	 * @param beta, upper bound of the parent.
+	 * @param depth, remaining depth of the child.
+	 * @param ply, distance of the child from the root.
+	 * @return score of the child for the parent's player to move.
+	 */
+	private int searchChild(OthelloPosition pos, int move, int moveIndex, int alpha, int beta, int depth, int ply) {
+		pos.doMove(move);
+		int childScore;
+		if (moveIndex == 0) {
+			childScore = -pvs(pos, -beta, -alpha, depth, ply);
+		} else {
+			childScore = -pvs(pos, -alpha - 1, -alpha, depth, ply);
+			if (childScore > alpha && childScore < beta) {
+				childScore = -pvs(pos, -beta, -alpha, depth, ply);
+			}
+		}
+		pos.undoMove();
+		return childScore;
+	}
+
+	/**
+	 * Handles a node where the player to move has no legal move. The move goes
+	 * over to the opponent, or, if the opponent cannot move either, the game is
+	 * over and scored by the discs.
+	 *
+	 * @param pos, position without moves for the player to move.
+	 * @param alpha, lower bound.
+	 * @param beta, upper bound.
+	 * @param depth, remaining depth, not used up by the pass.
+	 * @param ply, distance from the root.
+	 * @return score for the player to move.
+	 */
+	private int passOrGameOver(OthelloPosition pos, int alpha, int beta, int depth, int ply) {
+		long own = pos.toMove() ? pos.getWhite() : pos.getBlack();
+		long opp = pos.toMove() ? pos.getBlack() : pos.getWhite();
+		if (OthelloPosition.legalMoves(opp, own) == 0) {
+			return gameOverScore(own, opp);
+		}
+
+		pos.doPass();
+		int passScore = -pvs(pos, -beta, -alpha, depth, ply + 1);
+		pos.undoMove();
+		return passScore;
+	}
+
+	/**
+	 * Scores a finished game for the player to move. Wins and losses are
+	 * outside the range of the evaluator, bigger margins score higher.
+	 *
+	 * @param own, discs of the player to move.
+	 * @param opp, discs of the opponent.
+	 * @return score for the player to move.
+	 */
+	protected static int gameOverScore(long own, long opp) {
+		int discDifference = Long.bitCount(own) - Long.bitCount(opp);
+		if (discDifference > 0) {
+			return WIN_SCORE + discDifference;
+		}
+		if (discDifference < 0) {
+			return -WIN_SCORE + discDifference;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,255 @@
+/**
+ * Table driven version of <code>Heuristics</code> that gives exactly the same scores.
+ *
+ * The weight of a square in <code>Heuristics</code> only depends on who holds
+ * a few squares close to it on the same edge or corner, so the board splits
+ * into parts that can be scored on their own:
+ *
+ *   - four corner regions, the corner and the two squares next to it along
+ *     each edge, the square diagonally in, six squares in all,
+ *   - four edges, the middle four squares of the edge and the four squares
+ *     inside them, whose weights depend on the edge square next to them,
+ *   - the remaining squares, which always have the same weight.
+ *
+ * The scores of every state of a corner region and of an edge are computed
+ * once, when the class is loaded. The other corners and edges are mirrored
+ * onto the upper left corner and the upper edge, where the region's squares
+ * are gathered into an index with shifts. Nothing is allocated per call.
+ *
+ * The weights of <code>Heuristics</code> depend on which squares the player
+ * to move holds, so the tables are made from the view of the player to move
+ * and the sign is flipped when black has the move.
+ *
+ * The constant squares are the linear part of the score. A position the
+ * search walks keeps their sum as a running score, see
+ * <code>IncrementalEvaluator</code>, and then it is only read. The corner
+ * regions and edges are looked up at every call: keeping their scores and
+ * looking them up only when a disc in the region changed was tried, and
+ * checking the regions cost as much as the eight lookups it saved.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class TableHeuristics implements IncrementalEvaluator {
+
+    private static final int OWN = 1;
+    private static final int OPPONENT = 2;
+
+    private static final int CORNER_SQUARES = 6;
+    private static final int EDGE_SQUARES = 8;
+
+    /**
+     * Squares that always weigh 15, 5 and 3.
+     */
+    private static final long WEIGHT_15_SQUARES = 0x0000240000240000L;
+    private static final long WEIGHT_5_SQUARES = 0x1800008181000018L;
+    private static final long WEIGHT_3_SQUARES = 0x00003C3C3C3C0000L & ~WEIGHT_15_SQUARES;
+
+    /**
+     * Value of a disc on each square of the linear part, 0 for the squares
+     * scored by the tables.
+     */
+    private static final int[] SQUARE_VALUES = new int[64];
+
+    /**
+     * Base 3 value of a number written in base 2, so that
+     * <code>TERNARY[own] + 2 * TERNARY[opponent]</code> indexes the state of
+     * up to eight squares.
+     */
+    private static final int[] TERNARY = new int[1 << EDGE_SQUARES];
+
+    /**
+     * Score of every state of the upper left corner region. Digit k of the
+     * index is square (1,1), (1,2), (1,3), (2,1), (2,2), (3,1) for k = 0 to 5.
+     */
+    private static final int[] CORNER_SCORES;
+
+    /**
+     * Score of every state of the upper edge. Digits 0 to 3 of the index are
+     * the edge squares (1,3) to (1,6), digits 4 to 7 the squares (2,3) to
+     * (2,6) below them. Only the inner squares are scored here, the edge
+     * squares belong to a corner region or are constant.
+     */
+    private static final int[] EDGE_SCORES;
+
+    static {
+        for (int square = 0; square < SQUARE_VALUES.length; square++) {
+            long bit = 1L << square;
+            SQUARE_VALUES[square] = (WEIGHT_15_SQUARES & bit) != 0 ? 15
+                    : (WEIGHT_5_SQUARES & bit) != 0 ? 5
+                    : (WEIGHT_3_SQUARES & bit) != 0 ? 3 : 0;
+        }
+
+        for (int bits = 0; bits < TERNARY.length; bits++) {
+            int value = 0;
+            for (int k = EDGE_SQUARES - 1; k >= 0; k--) {
+                value = 3 * value + ((bits >>> k) & 1);
+            }
+            TERNARY[bits] = value;
+        }
+
+        CORNER_SCORES = new int[power3(CORNER_SQUARES)];
+        int[] state = new int[EDGE_SQUARES];
+        for (int index = 0; index < CORNER_SCORES.length; index++) {
+            decode(index, state);
+            CORNER_SCORES[index] = cornerRules(state);
+        }
+
+        EDGE_SCORES = new int[power3(EDGE_SQUARES)];
+        for (int index = 0; index < EDGE_SCORES.length; index++) {
+            decode(index, state);
+            EDGE_SCORES[index] = edgeRules(state);
+        }
+    }
+
+    /**
+     * Evaluates the given position with the weights of <code>Heuristics</code>.
+     *
+     * @param pos, position to evaluate.
+     * @return integer score, higher is better for White, lower is better for Black.
+     */
+    @Override
+    public int evaluate(OthelloPosition pos) {
+        int linear;
+        if (pos.getSquareValues() == SQUARE_VALUES) {
+            linear = pos.getSquareScore();
+        } else {
+            long white = pos.getWhite();
+            long black = pos.getBlack();
+            linear = 15 * (Long.bitCount(white & WEIGHT_15_SQUARES) - Long.bitCount(black & WEIGHT_15_SQUARES))
+                    + 5 * (Long.bitCount(white & WEIGHT_5_SQUARES) - Long.bitCount(black & WEIGHT_5_SQUARES))
+                    + 3 * (Long.bitCount(white & WEIGHT_3_SQUARES) - Long.bitCount(black & WEIGHT_3_SQUARES));
+        }
+
+        boolean whiteToMove = pos.toMove();
+        long own = whiteToMove ? pos.getWhite() : pos.getBlack();
+        long opp = whiteToMove ? pos.getBlack() : pos.getWhite();
+        return whiteToMove ? linear + regionScore(own, opp) : linear - regionScore(own, opp);
+    }
+
+    /**
+     * Returns the value of a disc on each square of the linear part.
+     *
+     * @return the disc values, shared by every instance.
+     */
+    @Override
+    public int[] getSquareValues() {
+        return SQUARE_VALUES;
+    }
+
+    /**
+     * Scores the four corner regions and the four edges from the tables.
+     *
+     * @param own, discs of the player to move.
+     * @param opp, discs of the other player.
+     * @return own weights minus opponent weights.
+     */
+    private static int regionScore(long own, long opp) {
+        long ownV = OthelloPosition.flipVertical(own);
+        long oppV = OthelloPosition.flipVertical(opp);
+        long ownH = OthelloPosition.flipHorizontal(own);
+        long oppH = OthelloPosition.flipHorizontal(opp);
+        long ownD = OthelloPosition.flipDiagonal(own);
+        long oppD = OthelloPosition.flipDiagonal(opp);
+
+        return CORNER_SCORES[TERNARY[corner(own)] + 2 * TERNARY[corner(opp)]]
+                + CORNER_SCORES[TERNARY[corner(ownH)] + 2 * TERNARY[corner(oppH)]]
+                + CORNER_SCORES[TERNARY[corner(ownV)] + 2 * TERNARY[corner(oppV)]]
+                + CORNER_SCORES[TERNARY[corner(Long.reverse(own))] + 2 * TERNARY[corner(Long.reverse(opp))]]
+                + EDGE_SCORES[TERNARY[edge(own)] + 2 * TERNARY[edge(opp)]]
+                + EDGE_SCORES[TERNARY[edge(ownV)] + 2 * TERNARY[edge(oppV)]]
+                + EDGE_SCORES[TERNARY[edge(ownD)] + 2 * TERNARY[edge(oppD)]]
+                + EDGE_SCORES[TERNARY[edge(OthelloPosition.flipVertical(ownD))]
+                        + 2 * TERNARY[edge(OthelloPosition.flipVertical(oppD))]];
+    }
+
+    /**
+     * Gathers the squares of the upper left corner region into six bits.
+     *
+     * @param board, bitboard of one player.
+     * @return bits of (1,1), (1,2), (1,3), (2,1), (2,2), (3,1).
+     */
+    private static int corner(long board) {
+        return (int) ((board & 0x7L) | ((board >>> 5) & 0x18L) | ((board >>> 11) & 0x20L));
+    }
+
+    /**
+     * Gathers the squares of the upper edge into eight bits.
+     *
+     * @param board, bitboard of one player.
+     * @return bits of (1,3) to (1,6), then (2,3) to (2,6).
+     */
+    private static int edge(long board) {
+        return (int) (((board >>> 2) & 0xFL) | ((board >>> 6) & 0xF0L));
+    }
+
+    /**
+     * Scores a state of the upper left corner region with the rules of
+     * <code>Heuristics</code>, from the view of the player to move.
+     *
+     * @param s, state of (1,1), (1,2), (1,3), (2,1), (2,2), (3,1).
+     * @return own weights minus opponent weights.
+     */
+    private static int cornerRules(int[] s) {
+        return 120 * sign(s[0])
+                + (s[0] == OWN ? 20 : -20) * sign(s[1])
+                + (s[1] == OWN ? 20 : -10) * sign(s[2])
+                + (s[0] == OWN ? 20 : -20) * sign(s[3])
+                + (s[3] == OWN && s[1] == OWN && s[0] == OWN ? 5 : -40) * sign(s[4])
+                + (s[0] == OPPONENT ? -5 : 20) * sign(s[5]);
+    }
+
+    /**
+     * Scores the inner squares of a state of the upper edge with the rules of
+     * <code>Heuristics</code>, from the view of the player to move.
+     *
+     * @param s, state of (1,3) to (1,6), then (2,3) to (2,6).
+     * @return own weights minus opponent weights.
+     */
+    private static int edgeRules(int[] s) {
+        int score = 0;
+        for (int k = 0; k < 4; k++) {
+            score += (s[k] == OWN ? 3 : -5) * sign(s[k + 4]);
+        }
+        return score;
+    }
+
+    /**
+     * Returns 1 for an own disc, -1 for an opponent disc and 0 for an empty square.
+     *
+     * @param square, state of the square.
+     * @return sign of the square's weight in the score.
+     */
+    private static int sign(int square) {
+        return square == OWN ? 1 : square == OPPONENT ? -1 : 0;
+    }
+
+    /**
+     * Writes the base 3 digits of an index, lowest first.
+     *
+     * @param index, table index.
+     * @param state, array the digits are written to.
+     */
+    private static void decode(int index, int[] state) {
+        for (int k = 0; k < state.length; k++) {
+            state[k] = index % 3;
+            index /= 3;
+        }
+    }
+
+    /**
+     * Returns 3 to the given power.
+     *
+     * @param exponent, power to raise 3 to.
+     * @return 3 to the power.
+     */
+    private static int power3(int exponent) {
+        int result = 1;
+        for (int k = 0; k < exponent; k++) {
+            result *= 3;
+        }
+        return result;
+    }
+}
@@ -1,18 +1,26 @@
 /**
  * Exception used to stop search when time limit is passed.
  *
+ * It carries no stack trace, it is only used to unwind the search, so
+ * creating one is cheap. The search throws the shared <code>TIME_IS_UP</code>.
+ *
  * @author Fredrik Alexandre, author
  * @author Samuel Hagner, author
- * @version 1.0, 2025-09-24
+ * @version 1.1, 2026-10-18
  */
 
 public class TimeIsUpExeption extends RuntimeException {
 
+    /**
+     * Shared instance thrown by the search.
+     */
+    public static final TimeIsUpExeption TIME_IS_UP = new TimeIsUpExeption();
+
     /**
      * Creates an exception saying that search is out of time.
      */
     public TimeIsUpExeption() {
-        super("Search time limit reached!");
+        super("Search time limit reached!", null, false, false);
     }
 
 }
@@ -0,0 +1,565 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Learns the weights of <code>PatternEvaluator</code> from self-play.
+ *
+ * Usage:
+ *   java Trainer play [games] [file] [depth] [threads] [seed]
+ *   java Trainer fit [file] [weights] [epochs] [threads]
+ *   java Trainer dedupe [file]
+ *
+ * Subcommands:
+ *   play  Plays games against itself on every core and appends the
+ *         positions, labelled with the final result, to the data file.
+ *   fit   Fits the pattern weights to the positions of the data file and
+ *         writes them to the weight file Othello loads.
+ *   dedupe  Counts the different positions of the data file, as they are
+ *         and with the symmetric forms of a position counted as one, by
+ *         number of discs.
+ *
+ * Every game starts with a few random moves, so that the games differ, and
+ * then both sides play with <code>PrincipalVariationSearch</code> and
+ * <code>MobilityEvaluator</code> at a shallow depth. Once few enough squares
+ * are empty, <code>EndgameSolver</code> solves the position and the game is
+ * played out perfectly. Every position of the game is labelled with the
+ * solved disc differential, which is what the evaluator learns to predict.
+ *
+ * A position takes 17 bytes in the data file, the white and the black
+ * bitboard and the label, so millions of positions fit in a few tens of
+ * megabytes.
+ *
+ * The weights are fitted by least squares, with conjugate gradients on the
+ * normal equations, see <code>fit</code>. Each epoch is one pass over the
+ * positions, split between the threads, each adding up its share into its
+ * own arrays. Every position is learned in its eight symmetric forms, which
+ * teaches a shape and its mirror images the same weight. Every twentieth
+ * position is left out of the fit and used to measure the error on
+ * positions not learned from.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class Trainer {
+
+	/**
+	 * Score of one disc of final disc differential, in the units of the weights.
+	 */
+	static final int SCORE_PER_DISC = 16;
+
+	private static final int DEFAULT_GAMES = 1000;
+	private static final String DEFAULT_DATA_FILE = "selfplay.dat";
+	private static final String DEFAULT_WEIGHTS_FILE = "othello.weights";
+	private static final int DEFAULT_DEPTH = 4;
+	private static final long DEFAULT_SEED = 1L;
+	private static final int DEFAULT_EPOCHS = 30;
+
+	/**
+	 * Number of random moves at the start of every game.
+	 */
+	private static final int RANDOM_PLIES = 8;
+
+	/**
+	 * Number of empty squares at which the game is solved exactly.
+	 */
+	private static final int EXACT_EMPTIES = 12;
+
+	private static final int TABLE_SIZE_MB = 4;
+	private static final int RECORD_BYTES = 2 * Long.BYTES + 1;
+	private static final int PROGRESS_GAMES = 100;
+	private static final double ONE_SECOND_OF_NANOS = 1e9;
+
+	/**
+	 * One position in this many is kept out of the fit to measure the error.
+	 */
+	private static final int TEST_SHARE = 20;
+
+	/**
+	 * Weight of the penalty on the squared weights, which keeps weights that
+	 * few positions use close to 0.
+	 */
+	private static final int PRIOR_COUNT = 10;
+
+	/**
+	 * Disc counts the dedupe report is split by, each row up to the next.
+	 */
+	private static final int[] DEDUPE_ROWS = {4, 8, 12, 16, 20, 30, 40, 50, 65};
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1) {
+			printUsageAndExit();
+		}
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		switch (args[0]) {
+			case "play":
+				play(intArgument(args, 1, DEFAULT_GAMES), Paths.get(stringArgument(args, 2, DEFAULT_DATA_FILE)),
+						intArgument(args, 3, DEFAULT_DEPTH), intArgument(args, 4, cores),
+						longArgument(args, 5, DEFAULT_SEED));
+				break;
+			case "fit":
+				fit(Paths.get(stringArgument(args, 1, DEFAULT_DATA_FILE)),
+						Paths.get(stringArgument(args, 2, DEFAULT_WEIGHTS_FILE)),
+						intArgument(args, 3, DEFAULT_EPOCHS), intArgument(args, 4, cores));
+				break;
+			case "dedupe":
+				dedupe(Paths.get(stringArgument(args, 1, DEFAULT_DATA_FILE)));
+				break;
+			default:
+				printUsageAndExit();
+		}
+	}
+
+	/**
+	 * Plays games on several threads and appends their positions to a file.
+	 *
+	 * @param games, number of games to play.
+	 * @param file, data file, created if it does not exist.
+	 * @param depth, search depth of the moves before the endgame.
+	 * @param threads, number of threads playing games.
+	 * @param seed, seed of the random opening moves.
+	 */
+	private static void play(int games, Path file, int depth, int threads, long seed)
+			throws IOException, InterruptedException {
+		AtomicInteger started = new AtomicInteger();
+		AtomicInteger positions = new AtomicInteger();
+		long startNanos = System.nanoTime();
+
+		try (OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			List<Thread> players = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				Random random = new Random(seed + t);
+				Thread player = new Thread(() -> {
+					AlphaBeta search = new PrincipalVariationSearch(new MobilityEvaluator(), depth);
+					search.setTranspositionTable(new TranspositionTable(TABLE_SIZE_MB));
+					EndgameSolver solver = new EndgameSolver(new TranspositionTable(TABLE_SIZE_MB));
+					List<OthelloPosition> game = new ArrayList<>();
+
+					for (int g = started.getAndIncrement(); g < games; g = started.getAndIncrement()) {
+						int score = playGame(search, solver, random, game);
+						synchronized (out) {
+							try {
+								for (OthelloPosition position : game) {
+									out.writeLong(position.getWhite());
+									out.writeLong(position.getBlack());
+									out.writeByte(score);
+								}
+							} catch (IOException e) {
+								throw new RuntimeException(e);
+							}
+							int total = positions.addAndGet(game.size());
+							if ((g + 1) % PROGRESS_GAMES == 0 && g + 1 < games) {
+								report(g + 1, total, startNanos, threads);
+							}
+						}
+					}
+				});
+				players.add(player);
+				player.start();
+			}
+			for (Thread player : players) {
+				player.join();
+			}
+		}
+		report(games, positions.get(), startNanos, threads);
+	}
+
+	/**
+	 * Plays one game and returns the positions it went through.
+	 *
+	 * @param search, search for the moves before the endgame.
+	 * @param solver, solver for the endgame.
+	 * @param random, source of the opening moves.
+	 * @param game, list the positions are written to, cleared first.
+	 * @return final disc differential of the game, seen from white.
+	 */
+	private static int playGame(AlphaBeta search, EndgameSolver solver, Random random, List<OthelloPosition> game) {
+		game.clear();
+		OthelloPosition position = new OthelloPosition();
+		position.initialize();
+		int[] moves = new int[OthelloPosition.MAX_MOVES];
+		Integer solvedScore = null;
+		boolean passed = false;
+
+		try {
+			while (true) {
+				int moveCount = position.getMoves(moves);
+				if (moveCount == 0) {
+					if (passed) {
+						break;
+					}
+					passed = true;
+					position = position.makeMove(new OthelloAction("pass"));
+					continue;
+				}
+				passed = false;
+				game.add(position);
+
+				OthelloAction action;
+				if (game.size() <= RANDOM_PLIES) {
+					action = OthelloAction.fromSquare(moves[random.nextInt(moveCount)]);
+				} else if (position.getEmptyCount() <= EXACT_EMPTIES) {
+					action = solver.evaluate(position);
+					if (solvedScore == null) {
+						solvedScore = solver.getScore();
+					}
+				} else {
+					action = search.evaluate(position);
+				}
+				position = position.makeMove(action);
+			}
+		} catch (IllegalMoveException e) {
+			throw new IllegalStateException("The search returned an illegal move", e);
+		}
+		return solvedScore != null ? solvedScore : finalScore(position);
+	}
+
+	/**
+	 * Returns the disc differential of a finished game, with the empty
+	 * squares counted for the winner.
+	 *
+	 * @param position, position where neither player can move.
+	 * @return disc differential, seen from white.
+	 */
+	private static int finalScore(OthelloPosition position) {
+		int difference = Long.bitCount(position.getWhite()) - Long.bitCount(position.getBlack());
+		int empties = position.getEmptyCount();
+		return difference > 0 ? difference + empties : difference < 0 ? difference - empties : 0;
+	}
+
+	/**
+	 * Prints how many positions were made and how fast.
+	 */
+	private static void report(int games, int positions, long startNanos, int threads) {
+		double seconds = (System.nanoTime() - startNanos) / ONE_SECOND_OF_NANOS;
+		System.out.printf("play: %d games, %d positions, %.1f s, %.1f positions/s per core%n",
+				games, positions, seconds, positions / seconds / threads);
+	}
+
+	/**
+	 * Fits the pattern weights to the positions of a data file.
+	 *
+	 * The fit solves the regularized normal equations
+	 * (A'A + PRIOR_COUNT * I) w = A'y, where row i of A holds the weights
+	 * position i uses and y its labels, by conjugate gradients. The equations
+	 * are scaled by the number of positions using each weight, so rare and
+	 * common weights converge at the same pace. A' A p is computed in a single
+	 * pass over the positions: each position adds up the direction p over its
+	 * weights and adds the sum back to them.
+	 *
+	 * @param dataFile, file written by <code>play</code>.
+	 * @param weightsFile, weight file to write.
+	 * @param epochs, number of passes over the positions.
+	 * @param threads, number of threads sharing each pass.
+	 */
+	private static void fit(Path dataFile, Path weightsFile, int epochs, int threads)
+			throws IOException, InterruptedException {
+		int count = (int) (Files.size(dataFile) / RECORD_BYTES);
+		long[] white = new long[count];
+		long[] black = new long[count];
+		int[] targets = new int[count];
+		try (InputStream stream = Files.newInputStream(dataFile);
+			 DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+			for (int i = 0; i < count; i++) {
+				white[i] = in.readLong();
+				black[i] = in.readLong();
+				targets[i] = in.readByte() * SCORE_PER_DISC;
+			}
+		} catch (EOFException e) {
+			throw new IOException(dataFile + " is truncated", e);
+		}
+		int size = PatternEvaluator.STAGES * PatternEvaluator.STAGE_SIZE;
+		System.out.printf("fit: %d positions, %d weights%n", count, size);
+
+		// The first pass gives the residual of the normal equations for w = 0, A'y.
+		float[] weights = new float[size];
+		Pass first = runPass(weights, null, white, black, targets, threads);
+		float[] residual = first.sums;
+		float[] scale = new float[size];
+		for (int i = 0; i < size; i++) {
+			scale[i] = 1.0f / (first.uses[i] + PRIOR_COUNT);
+		}
+		float[] direction = new float[size];
+		double residualNorm = 0;
+		for (int i = 0; i < size; i++) {
+			direction[i] = scale[i] * residual[i];
+			residualNorm += (double) residual[i] * direction[i];
+		}
+		reportEpoch(0, first, count, threads);
+
+		for (int epoch = 1; epoch <= epochs && residualNorm > 0; epoch++) {
+			Pass pass = runPass(weights, direction, white, black, targets, threads);
+			float[] product = pass.sums;
+			double curvature = 0;
+			for (int i = 0; i < size; i++) {
+				product[i] += PRIOR_COUNT * direction[i];
+				curvature += (double) direction[i] * product[i];
+			}
+			double step = residualNorm / curvature;
+
+			double nextNorm = 0;
+			for (int i = 0; i < size; i++) {
+				weights[i] += (float) (step * direction[i]);
+				residual[i] -= (float) (step * product[i]);
+				nextNorm += (double) residual[i] * scale[i] * residual[i];
+			}
+			double beta = nextNorm / residualNorm;
+			for (int i = 0; i < size; i++) {
+				direction[i] = (float) (scale[i] * residual[i] + beta * direction[i]);
+			}
+			residualNorm = nextNorm;
+
+			// The pass measured the error of the weights before this step.
+			reportEpoch(epoch, pass, count, threads);
+		}
+
+		short[][] rounded = new short[PatternEvaluator.STAGES][PatternEvaluator.STAGE_SIZE];
+		for (int i = 0; i < size; i++) {
+			rounded[i / PatternEvaluator.STAGE_SIZE][i % PatternEvaluator.STAGE_SIZE] =
+					(short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(weights[i])));
+		}
+		PatternWeights.write(weightsFile, rounded);
+		System.out.println("fit: wrote " + weightsFile);
+	}
+
+	/**
+	 * Runs one pass over the positions, split between threads, and adds up
+	 * the threads' results in the first one.
+	 *
+	 * @param weights, weights whose error is measured.
+	 * @param direction, vector to multiply by A'A, or null for A'y.
+	 * @return the summed pass.
+	 */
+	private static Pass runPass(float[] weights, float[] direction, long[] white, long[] black, int[] targets,
+			int threads) throws InterruptedException {
+		Pass[] passes = new Pass[threads];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			passes[t] = new Pass(weights, direction, white, black, targets, t, threads);
+			workers[t] = new Thread(passes[t]);
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		Pass sum = passes[0];
+		for (int t = 1; t < threads; t++) {
+			for (int i = 0; i < sum.sums.length; i++) {
+				sum.sums[i] += passes[t].sums[i];
+				sum.uses[i] += passes[t].uses[i];
+			}
+			sum.trainError += passes[t].trainError;
+			sum.testError += passes[t].testError;
+			sum.trainCount += passes[t].trainCount;
+			sum.testCount += passes[t].testCount;
+		}
+		for (int t = 1; t < threads; t++) {
+			sum.nanos = Math.max(sum.nanos, passes[t].nanos);
+		}
+		return sum;
+	}
+
+	/**
+	 * Prints the errors measured by a pass and how fast it went.
+	 */
+	private static void reportEpoch(int epoch, Pass pass, int count, int threads) {
+		double seconds = pass.nanos / ONE_SECOND_OF_NANOS;
+		System.out.printf("epoch %d: error %.2f discs, %.2f on left out positions, %.1f s, %.0f positions/s per core%n",
+				epoch, Math.sqrt(pass.trainError / Math.max(1, pass.trainCount)) / SCORE_PER_DISC,
+				Math.sqrt(pass.testError / Math.max(1, pass.testCount)) / SCORE_PER_DISC,
+				seconds, count * OthelloPosition.SYMMETRIES / seconds / threads);
+	}
+
+	/**
+	 * One thread's share of a pass, every position whose number modulo the
+	 * thread count is the thread's. Every position is taken in its eight
+	 * symmetric forms. For the positions that are learned from, the pass adds
+	 * to each weight a position uses either the position's error, when no
+	 * direction is given, or the sum of the direction over the position's
+	 * weights.
+	 */
+	private static class Pass implements Runnable {
+
+		private final float[] weights;
+		private final float[] direction;
+		private final long[] white;
+		private final long[] black;
+		private final int[] targets;
+		private final int first;
+		private final int step;
+
+		final float[] sums;
+		final int[] uses;
+		double trainError;
+		double testError;
+		long trainCount;
+		long testCount;
+		long nanos;
+
+		Pass(float[] weights, float[] direction, long[] white, long[] black, int[] targets, int first, int step) {
+			this.weights = weights;
+			this.direction = direction;
+			this.white = white;
+			this.black = black;
+			this.targets = targets;
+			this.first = first;
+			this.step = step;
+			this.sums = new float[weights.length];
+			this.uses = new int[weights.length];
+		}
+
+		@Override
+		public void run() {
+			long startNanos = System.nanoTime();
+			int[] indices = new int[PatternEvaluator.PLACEMENTS.length];
+			int[] offsets = new int[indices.length];
+			for (int i = first; i < targets.length; i += step) {
+				boolean test = i % TEST_SHARE == 0;
+				int stageOffset = PatternEvaluator.stage(Long.bitCount(white[i] | black[i])) * PatternEvaluator.STAGE_SIZE;
+
+				for (int symmetry = 0; symmetry < OthelloPosition.SYMMETRIES; symmetry++) {
+					PatternEvaluator.indices(OthelloPosition.transform(white[i], symmetry),
+							OthelloPosition.transform(black[i], symmetry), indices);
+					float predicted = 0;
+					float along = 0;
+					for (int placement = 0; placement < indices.length; placement++) {
+						offsets[placement] = stageOffset + PatternEvaluator.offset(placement, indices[placement]);
+						predicted += weights[offsets[placement]];
+						if (direction != null) {
+							along += direction[offsets[placement]];
+						}
+					}
+					float error = targets[i] - predicted;
+
+					if (test) {
+						testError += error * error;
+						testCount++;
+						continue;
+					}
+					trainError += error * error;
+					trainCount++;
+					float added = direction != null ? along : error;
+					for (int offset : offsets) {
+						sums[offset] += added;
+						uses[offset]++;
+					}
+				}
+			}
+			nanos = System.nanoTime() - startNanos;
+		}
+	}
+
+	/**
+	 * Prints how many of the positions of a data file are different, and how
+	 * many are left when the symmetric forms of a position are one position.
+	 *
+	 * @param dataFile, file written by <code>play</code>.
+	 */
+	private static void dedupe(Path dataFile) throws IOException {
+		int rows = DEDUPE_ROWS.length - 1;
+		List<Set<Long>> plain = new ArrayList<>();
+		List<Set<Long>> canonical = new ArrayList<>();
+		long[] counts = new long[rows];
+		for (int row = 0; row < rows; row++) {
+			plain.add(new HashSet<>());
+			canonical.add(new HashSet<>());
+		}
+
+		try (InputStream stream = Files.newInputStream(dataFile);
+			 DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+			for (long i = Files.size(dataFile) / RECORD_BYTES; i > 0; i--) {
+				long white = in.readLong();
+				long black = in.readLong();
+				in.readByte();
+
+				int discs = Long.bitCount(white | black);
+				int row = 0;
+				while (discs >= DEDUPE_ROWS[row + 1]) {
+					row++;
+				}
+				int symmetry = OthelloPosition.canonicalSymmetry(white, black);
+				counts[row]++;
+				plain.get(row).add(boardKey(white, black));
+				canonical.get(row).add(boardKey(OthelloPosition.transform(white, symmetry),
+						OthelloPosition.transform(black, symmetry)));
+			}
+		}
+
+		long total = 0;
+		long totalPlain = 0;
+		long totalCanonical = 0;
+		System.out.println("discs      positions  different  canonical  ratio");
+		for (int row = 0; row < rows; row++) {
+			printDedupeRow(DEDUPE_ROWS[row] + "-" + (DEDUPE_ROWS[row + 1] - 1), counts[row],
+					plain.get(row).size(), canonical.get(row).size());
+			total += counts[row];
+			totalPlain += plain.get(row).size();
+			totalCanonical += canonical.get(row).size();
+		}
+		printDedupeRow("all", total, totalPlain, totalCanonical);
+	}
+
+	private static void printDedupeRow(String discs, long positions, long different, long canonical) {
+		System.out.printf("%-8s %11d %10d %10d  %5.2f%n",
+				discs, positions, different, canonical, (double) different / Math.max(1L, canonical));
+	}
+
+	/**
+	 * Mixes two bitboards into one key. Two different boards get the same key
+	 * with a chance of about one in 2^64.
+	 */
+	private static long boardKey(long white, long black) {
+		long key = white * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(black * 0xC2B2AE3D27D4EB4FL, 31);
+		return key ^ (key >>> 29);
+	}
+
+	private static String stringArgument(String[] args, int index, String defaultValue) {
+		return args.length > index ? args[index] : defaultValue;
+	}
+
+	private static int intArgument(String[] args, int index, int defaultValue) {
+		return (int) longArgument(args, index, defaultValue);
+	}
+
+	private static long longArgument(String[] args, int index, long defaultValue) {
+		if (args.length <= index) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(args[index]);
+		} catch (NumberFormatException e) {
+			System.err.println("Argument " + (index + 1) + " must be an integer!");
+			System.exit(1);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Prints how to use the trainer and exits.
+	 */
+	private static void printUsageAndExit() {
+		System.err.println("Usage: java Trainer play [games] [file] [depth] [threads] [seed]");
+		System.err.println("       java Trainer fit [file] [weights] [epochs] [threads]");
+		System.err.println("       java Trainer dedupe [file]");
+		System.exit(1);
+	}
+}
@@ -0,0 +1,278 @@
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table for the search.
+ *
+ * Every entry stores the position hash, the searched depth, the bound type,
+ * the score and the best move. Entries are kept in buckets of two: the first
+ * slot is depth-preferred and only gives way to an equal or deeper search of
+ * another position, the second slot is always replaced. A position pushed out
+ * of the first slot moves down to the second one.
+ *
+ * The table is made of two primitive arrays, so probing and storing never
+ * allocates. An entry is read as one packed <code>long</code> which is split
+ * up with the static accessors.
+ *
+ * Several search threads can share one table without locks. The key word of
+ * a slot holds the position hash XOR the data word, so a slot that another
+ * thread was writing halfway through does not match any position and is
+ * read as a miss. The counters are not synchronised and are only approximate
+ * when more than one thread uses the table.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class TranspositionTable {
+
+	/**
+	 * The score is the exact minimax value.
+	 */
+	public static final int EXACT = 1;
+
+	/**
+	 * The search failed high, the real value is at least the score.
+	 */
+	public static final int LOWER = 2;
+
+	/**
+	 * The search failed low, the real value is at most the score.
+	 */
+	public static final int UPPER = 3;
+
+	/**
+	 * Returned by <code>probe</code> when the position is not in the table.
+	 */
+	public static final long MISS = 0L;
+
+	/**
+	 * Default table size in megabytes.
+	 */
+	public static final int DEFAULT_SIZE_MB = 32;
+
+	/**
+	 * Bytes used by one entry, one key and one data word.
+	 */
+	private static final int ENTRY_BYTES = 16;
+
+	/**
+	 * Move stored for entries without a best move.
+	 */
+	private static final int NO_MOVE = 64;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int bucketMask;
+
+	private long hits;
+	private long misses;
+	private long collisions;
+	private long stores;
+	private long replacements;
+
+	/**
+	 * Creates a table that uses at most the given number of megabytes.
+	 *
+	 * The number of buckets is rounded down to a power of two.
+	 *
+	 * @param sizeInMb, memory to use in megabytes.
+	 */
+	public TranspositionTable(int sizeInMb) {
+		long entries = Math.max(2L, ((long) sizeInMb << 20) / ENTRY_BYTES);
+		int buckets = Integer.highestOneBit((int) Math.min(entries / 2, 1 << 29));
+		keys = new long[buckets * 2];
+		data = new long[buckets * 2];
+		bucketMask = buckets - 1;
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param key, Zobrist hash of the position.
+	 * @return the packed entry, or <code>MISS</code> if the position is not stored.
+	 */
+	public long probe(long key) {
+		int index = index(key);
+		long first = data[index];
+		if ((keys[index] ^ first) == key && first != MISS) {
+			hits++;
+			return first;
+		}
+		long second = data[index + 1];
+		if ((keys[index + 1] ^ second) == key && second != MISS) {
+			hits++;
+			return second;
+		}
+
+		misses++;
+		if (first != MISS && second != MISS) {
+			collisions++;
+		}
+		return MISS;
+	}
+
+	/**
+	 * Stores the result of a search.
+	 *
+	 * @param key, Zobrist hash of the position.
+	 * @param depth, depth the position was searched to.
+	 * @param bound, EXACT, LOWER or UPPER.
+	 * @param score, score found by the search.
+	 * @param move, best square 0-63, or <code>OthelloPosition.PASS</code>.
+	 */
+	public void store(long key, int depth, int bound, int score, int move) {
+		long entry = pack(depth, bound, score, move);
+		int index = index(key);
+		stores++;
+
+		// Read each slot once, other threads may change it while we look.
+		long firstData = data[index];
+		long firstKey = keys[index] ^ firstData;
+		long secondData = data[index + 1];
+		long secondKey = keys[index + 1] ^ secondData;
+
+		if (firstKey == key || firstData == MISS || depth >= depthOf(firstData)) {
+			if (firstKey != key && firstData != MISS) {
+				// The old depth-preferred entry moves down to the always-replace slot.
+				if (secondData != MISS) {
+					replacements++;
+				}
+				keys[index + 1] = firstKey ^ firstData;
+				data[index + 1] = firstData;
+			}
+			keys[index] = key ^ entry;
+			data[index] = entry;
+			return;
+		}
+
+		if (secondKey != key && secondData != MISS) {
+			replacements++;
+		}
+		keys[index + 1] = key ^ entry;
+		data[index + 1] = entry;
+	}
+
+	/**
+	 * Empties the table and resets the counters.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0L);
+		Arrays.fill(data, MISS);
+		hits = 0;
+		misses = 0;
+		collisions = 0;
+		stores = 0;
+		replacements = 0;
+	}
+
+	/**
+	 * Returns the number of probes that found the position.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of probes that did not find the position.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of misses where both slots of the bucket held other
+	 * positions.
+	 */
+	public long getCollisions() {
+		return collisions;
+	}
+
+	/**
+	 * Returns the number of stores that pushed another position out of the table.
+	 */
+	public long getReplacements() {
+		return replacements;
+	}
+
+	/**
+	 * Returns the number of entries the table can hold.
+	 */
+	public int capacity() {
+		return keys.length;
+	}
+
+	/**
+	 * Returns the depth of a packed entry.
+	 *
+	 * @param entry, entry from <code>probe</code>.
+	 * @return searched depth.
+	 */
+	public static int depthOf(long entry) {
+		return (int) (entry >>> 32) & 0xFF;
+	}
+
+	/**
+	 * Returns the bound type of a packed entry.
+	 *
+	 * @param entry, entry from <code>probe</code>.
+	 * @return EXACT, LOWER or UPPER.
+	 */
+	public static int boundOf(long entry) {
+		return (int) (entry >>> 40) & 0x3;
+	}
+
+	/**
+	 * Returns the score of a packed entry.
+	 *
+	 * @param entry, entry from <code>probe</code>.
+	 * @return stored score.
+	 */
+	public static int scoreOf(long entry) {
+		return (int) entry;
+	}
+
+	/**
+	 * Returns the best move of a packed entry.
+	 *
+	 * @param entry, entry from <code>probe</code>.
+	 * @return square 0-63, or <code>OthelloPosition.PASS</code> if there is none.
+	 */
+	public static int moveOf(long entry) {
+		int move = (int) (entry >>> 42) & 0x7F;
+		if (move == NO_MOVE) {
+			return OthelloPosition.PASS;
+		}
+		return move;
+	}
+
+	/**
+	 * Packs the fields of an entry into one word. The bound is never 0, so a
+	 * stored entry is never equal to <code>MISS</code>.
+	 */
+	private static long pack(int depth, int bound, int score, int move) {
+		long storedMove = move == OthelloPosition.PASS ? NO_MOVE : move;
+		return (score & 0xFFFFFFFFL)
+				| ((long) (depth & 0xFF) << 32)
+				| ((long) bound << 40)
+				| (storedMove << 42);
+	}
+
+	/**
+	 * Returns the index of the first slot of the bucket for a key.
+	 */
+	private int index(long key) {
+		return ((int) key & bucketMask) << 1;
+	}
+
+	/**
+	 * Summary of the counters, used to size the table.
+	 */
+	@Override
+	public String toString() {
+		long probes = hits + misses;
+		double hitRate = probes == 0 ? 0.0 : 100.0 * hits / probes;
+		return String.format("tt: %d entries, %d probes, %d hits (%.1f%%), %d misses, %d collisions, %d stores, %d replacements",
+				capacity(), probes, hits, hitRate, misses, collisions, stores, replacements);
+	}
+}
@@ -0,0 +1,87 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Makes sure a move is printed before the time limit, whatever the search is doing.
+ *
+ * The search hands every finished best move to the watchdog. A separate
+ * thread sleeps until shortly before the time limit. If no move has been
+ * printed by then, it prints the latest move it was given and stops the JVM
+ * at once, without waiting for the search to unwind. A GC pause, a slow JIT
+ * or a search that does not stop in time then costs strength, not the game.
+ *
+ * Exactly one move is printed: the main thread prints through
+ * <code>print</code> too, and whichever comes first wins.
+ *
+ * @author Fredrik Alexandre
+ * @author Samuel Hagner
+ * @version 1.0, 2026-10-18
+ */
+
+public class Watchdog {
+
+	private final long fireAtNanos;
+	private final AtomicBoolean printed = new AtomicBoolean(false);
+	private volatile OthelloAction bestAction;
+
+	/**
+	 * Creates a watchdog with a move to print if the search finds none.
+	 *
+	 * @param fireAtNanos, time to print the move at, in nanoseconds.
+	 * @param firstAction, move printed if no better one is given.
+	 */
+	public Watchdog(long fireAtNanos, OthelloAction firstAction) {
+		this.fireAtNanos = fireAtNanos;
+		this.bestAction = firstAction;
+	}
+
+	/**
+	 * Starts the watchdog thread.
+	 */
+	public void start() {
+		Thread thread = new Thread(this::watch, "watchdog");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MAX_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Gives the watchdog a newer best move.
+	 *
+	 * @param action, best move of the latest finished search.
+	 */
+	public void setBestAction(OthelloAction action) {
+		if (action != null) {
+			bestAction = action;
+		}
+	}
+
+	/**
+	 * Prints the move, unless the watchdog has already printed one.
+	 *
+	 * @param action, move to print.
+	 * @return true if the move was printed.
+	 */
+	public boolean print(OthelloAction action) {
+		if (!printed.compareAndSet(false, true)) {
+			return false;
+		}
+		action.print();
+		System.out.flush();
+		return true;
+	}
+
+	/**
+	 * Body of the watchdog thread: waits for the firing time, then prints the
+	 * latest move and halts the JVM if the main thread has not printed yet.
+	 */
+	private void watch() {
+		long waitNanos;
+		while ((waitNanos = fireAtNanos - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(waitNanos);
+		}
+		if (print(bestAction)) {
+			Runtime.getRuntime().halt(0);
+		}
+	}
+}
@@ -4,6 +4,13 @@
 # Change the last line (java Othello ...) if necessary
 #
 # usage: bash othello <position> <time_limit> <do_compile>
+#
+# The number of search threads is taken from OTHELLO_THREADS (default 1).
+#
+# Compiling also packs the classes into othello.jar and dumps a class data
+# sharing (AppCDS) archive, othello.jsa, from a short search. Later runs map
+# the already loaded and verified classes from the archive, so the JVM gets to
+# the first search node sooner. Without the archive the classes are run as is.
 # 
 # Author: Ola Ringdahl
 # Changed by: Fredrik Alexandre and Samuel Hagner
@@ -11,6 +18,10 @@
 position=$1
 time_limit=$2
 do_compile=$3 
+threads=${OTHELLO_THREADS:-1}
+# The start position with black to move: it is not in the opening book, so
+# the archive gets the classes of both the book lookup and the search.
+archive_position="BEEEEEEEEEEEEEEEEEEEEEEEEEEEOXEEEEEEXOEEEEEEEEEEEEEEEEEEEEEEEEEEE"
 
 if [ "$#" -ne 3 ]; then
 	# do_compile not set (not enough input arguments)
@@ -25,8 +36,18 @@ if [ $do_compile -eq 1 ]; then
 	# Compile the code:
 	javac *.java \
 	2> >(grep -v -E '^Picked up (JAVA_TOOL_OPTIONS|_JAVA_OPTIONS):' >&2)
+
+	# Archive the classes a search loads:
+	rm -f othello.jar othello.jsa
+	jar cf othello.jar *.class
+	java -XX:ArchiveClassesAtExit=othello.jsa -cp othello.jar Othello $archive_position 0.5 > /dev/null \
+	2> >(grep -v -E '^Picked up (JAVA_TOOL_OPTIONS|_JAVA_OPTIONS):' >&2)
+elif [ othello.jsa -nt othello.jar ]; then
+	# Call your Java program with a position and time limit, using the archive:
+	java -XX:SharedArchiveFile=othello.jsa -cp othello.jar Othello $position $time_limit threads=$threads \
+	2> >(grep -v -E '^Picked up (JAVA_TOOL_OPTIONS|_JAVA_OPTIONS):' >&2)
 else
 	# Call your Java program with a position and time limit:
-	java Othello $position $time_limit \
+	java Othello $position $time_limit threads=$threads \
 	2> >(grep -v -E '^Picked up (JAVA_TOOL_OPTIONS|_JAVA_OPTIONS):' >&2)
 fi